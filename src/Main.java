@@ -22,7 +22,12 @@ public class Main {
                 "tests/us6.txt",
                 "tests/us6_1.txt",
                 "tests/us7.txt",
-                "tests/us8.txt"
+                "tests/us8.txt",
+                "tests/us11.txt",
+                "tests/us12.txt",
+                "tests/us13.txt",
+                "tests/us15.txt",
+                "tests/us16.txt"
 //        EasyAccept.main(new String[]{facade, "tests/us9.txt"});
 //        EasyAccept.main(new String[]{facade, "tests/us9_1.txt"});
 //        EasyAccept.main(new String[]{facade, "tests/us10.txt"});
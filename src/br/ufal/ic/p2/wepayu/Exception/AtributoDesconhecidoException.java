@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class AtributoDesconhecidoException extends RuntimeException {
+public class AtributoDesconhecidoException extends ValidacaoException {
     public AtributoDesconhecidoException() {
         super("Atributo desconhecido.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class AtributoNaoExisteException extends RuntimeException {
+public class AtributoNaoExisteException extends ValidacaoException {
     public AtributoNaoExisteException() {
         super("Atributo nao existe.");
     }
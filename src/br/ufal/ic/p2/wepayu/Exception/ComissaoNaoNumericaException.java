@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class ComissaoNaoNumericaException extends RuntimeException {
+public class ComissaoNaoNumericaException extends ValidacaoException {
     public ComissaoNaoNumericaException() {
         super("Comissao deve ser numerica.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class ComissaoNulaException extends RuntimeException {
+public class ComissaoNulaException extends ValidacaoException {
     public ComissaoNulaException() {
         super("Comissao nao pode ser nula.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class DataInicialPosteriorException extends RuntimeException {
+public class DataInicialPosteriorException extends ValidacaoException {
     public DataInicialPosteriorException() {
         super("Data inicial nao pode ser posterior aa data final.");
     }
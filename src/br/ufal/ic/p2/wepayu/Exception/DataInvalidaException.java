@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class DataInvalidaException extends RuntimeException {
+public class DataInvalidaException extends ValidacaoException {
     public DataInvalidaException() {
         super("Data invalida.");
     }
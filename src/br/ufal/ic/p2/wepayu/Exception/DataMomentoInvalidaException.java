@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class DataMomentoInvalidaException extends RuntimeException {
+public class DataMomentoInvalidaException extends ValidacaoException {
     public DataMomentoInvalidaException(String message) {
         super(message);
     }
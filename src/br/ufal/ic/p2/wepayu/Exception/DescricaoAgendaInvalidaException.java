@@ -0,0 +1,9 @@
+package br.ufal.ic.p2.wepayu.Exception;
+
+public class DescricaoAgendaInvalidaException extends ValidacaoException {
+    private static final long serialVersionUID = 1L;
+
+    public DescricaoAgendaInvalidaException() {
+        super("Descricao de agenda invalida");
+    }
+}
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class EmpregadoNaoComissionadoException extends RuntimeException {
+public class EmpregadoNaoComissionadoException extends ValidacaoException {
     public EmpregadoNaoComissionadoException() {
         super("Empregado nao eh comissionado.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class EmpregadoNaoEncontradoException extends RuntimeException {
+public class EmpregadoNaoEncontradoException extends ValidacaoException {
     public EmpregadoNaoEncontradoException() {
         super("Nao ha empregado com esse nome.");
     }
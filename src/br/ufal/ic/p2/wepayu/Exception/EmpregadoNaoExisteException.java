@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class EmpregadoNaoExisteException extends RuntimeException{
+public class EmpregadoNaoExisteException extends ValidacaoException{
     public EmpregadoNaoExisteException(){
         super("Empregado nao existe.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class EmpregadoNaoHoristaException extends RuntimeException {
+public class EmpregadoNaoHoristaException extends ValidacaoException {
     public EmpregadoNaoHoristaException() {
         super("Empregado nao eh horista.");
     }
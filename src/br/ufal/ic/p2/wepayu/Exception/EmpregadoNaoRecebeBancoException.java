@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class EmpregadoNaoRecebeBancoException extends RuntimeException {
+public class EmpregadoNaoRecebeBancoException extends ValidacaoException {
     public EmpregadoNaoRecebeBancoException() {
         super("Empregado nao recebe em banco.");
     }
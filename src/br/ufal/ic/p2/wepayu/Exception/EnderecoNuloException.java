@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class EnderecoNuloException extends RuntimeException {
+public class EnderecoNuloException extends ValidacaoException {
     public EnderecoNuloException() {
         super("Endereco nao pode ser nulo.");
     }
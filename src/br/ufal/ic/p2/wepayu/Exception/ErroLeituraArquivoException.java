@@ -0,0 +1,9 @@
+package br.ufal.ic.p2.wepayu.Exception;
+
+public class ErroLeituraArquivoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ErroLeituraArquivoException(String message) {
+        super(message);
+    }
+}
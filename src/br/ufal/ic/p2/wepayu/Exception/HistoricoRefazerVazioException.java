@@ -0,0 +1,9 @@
+package br.ufal.ic.p2.wepayu.Exception;
+
+public class HistoricoRefazerVazioException extends ValidacaoException {
+    private static final long serialVersionUID = 1L;
+
+    public HistoricoRefazerVazioException() {
+        super("Nao ha comando a refazer.");
+    }
+}
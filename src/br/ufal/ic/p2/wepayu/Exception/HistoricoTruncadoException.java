@@ -0,0 +1,9 @@
+package br.ufal.ic.p2.wepayu.Exception;
+
+public class HistoricoTruncadoException extends ValidacaoException {
+    private static final long serialVersionUID = 1L;
+
+    public HistoricoTruncadoException() {
+        super("Nao ha mais comandos a desfazer: o historico foi truncado pelo limite de memoria.");
+    }
+}
@@ -1,5 +1,5 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class HistoricoVazioException extends RuntimeException {
-  public HistoricoVazioException() { super("Nada a desfazer"); }
+public class HistoricoVazioException extends ValidacaoException {
+  public HistoricoVazioException() { super("Nao ha comando a desfazer."); }
 }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class HorasEmpregadoNulaException extends RuntimeException {
+public class HorasEmpregadoNulaException extends ValidacaoException {
     public HorasEmpregadoNulaException() {
         super("Horas do empregado nao pode ser nula.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class HorasNaoNumericasException extends RuntimeException {
+public class HorasNaoNumericasException extends ValidacaoException {
     public HorasNaoNumericasException() {
         super("Horas devem ser numericas.");
     }
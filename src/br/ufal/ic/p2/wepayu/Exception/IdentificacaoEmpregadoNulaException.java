@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class IdentificacaoEmpregadoNulaException extends RuntimeException {
+public class IdentificacaoEmpregadoNulaException extends ValidacaoException {
     public IdentificacaoEmpregadoNulaException() {
         super("Identificacao do empregado nao pode ser nula.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class IdentificacaoSindicatoRepetidaException extends RuntimeException {
+public class IdentificacaoSindicatoRepetidaException extends ValidacaoException {
     public IdentificacaoSindicatoRepetidaException() {
         super("Ha outro empregado com esta identificacao de sindicato");
     }
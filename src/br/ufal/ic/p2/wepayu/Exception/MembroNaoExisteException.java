@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class MembroNaoExisteException extends RuntimeException {
+public class MembroNaoExisteException extends ValidacaoException {
     public MembroNaoExisteException() {
         super("Membro nao existe.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class MetodoPagamentoDesconhecidoException extends RuntimeException {
+public class MetodoPagamentoDesconhecidoException extends ValidacaoException {
     public MetodoPagamentoDesconhecidoException() {
         super("Metodo de pagamento desconhecido.");
     }
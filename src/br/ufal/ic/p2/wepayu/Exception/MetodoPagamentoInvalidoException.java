@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class MetodoPagamentoInvalidoException extends RuntimeException {
+public class MetodoPagamentoInvalidoException extends ValidacaoException {
     public MetodoPagamentoInvalidoException() {
         super("Metodo de pagamento invalido.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class NomeNuloException extends RuntimeException {
+public class NomeNuloException extends ValidacaoException {
     public NomeNuloException() {
         super("Nome nao pode ser nulo.");
     }
@@ -0,0 +1,9 @@
+package br.ufal.ic.p2.wepayu.Exception;
+
+public class RegistroLancamentoInvalidoException extends ValidacaoException {
+    private static final long serialVersionUID = 1L;
+
+    public RegistroLancamentoInvalidoException() {
+        super("Registro de lancamento invalido.");
+    }
+}
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class SalarioNaoNumericoException extends RuntimeException {
+public class SalarioNaoNumericoException extends ValidacaoException {
     public SalarioNaoNumericoException() {
         super("Salario deve ser numerico.");
     }
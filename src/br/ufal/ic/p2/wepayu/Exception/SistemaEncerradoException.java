@@ -0,0 +1,9 @@
+package br.ufal.ic.p2.wepayu.Exception;
+
+public class SistemaEncerradoException extends ValidacaoException {
+    private static final long serialVersionUID = 1L;
+
+    public SistemaEncerradoException() {
+        super("Nao pode dar comandos depois de encerrarSistema.");
+    }
+}
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class TaxaSindicalNulaException extends RuntimeException {
+public class TaxaSindicalNulaException extends ValidacaoException {
     public TaxaSindicalNulaException() {
         super("Taxa sindical nao pode ser nula.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class TipoEmpregadoDesconhecidoException extends RuntimeException {
+public class TipoEmpregadoDesconhecidoException extends ValidacaoException {
     public TipoEmpregadoDesconhecidoException() {
         super("Tipo de empregado desconhecido.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class TipoEmpregadoInvalidoException extends RuntimeException {
+public class TipoEmpregadoInvalidoException extends ValidacaoException {
     public TipoEmpregadoInvalidoException() {
         super("Tipo invalido.");
     }
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class TipoNaoAplicavelException extends RuntimeException {
+public class TipoNaoAplicavelException extends ValidacaoException {
     public TipoNaoAplicavelException() {
         super("Tipo nao aplicavel.");
     }
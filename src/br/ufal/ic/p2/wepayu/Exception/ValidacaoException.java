@@ -0,0 +1,31 @@
+package br.ufal.ic.p2.wepayu.Exception;
+
+import java.util.function.Supplier;
+
+// Base das exceções de validação: mensagem fixa, lançadas em falhas normais de entrada.
+// Dentro de semPilha (na thread que o chamou) são criadas sem pilha nem supressão: quem recusa
+// milhões de linhas só precisa da mensagem, e preencher a pilha é a maior parte do custo de um throw.
+// Fora dele são exceções comuns, com a pilha de sempre.
+public abstract class ValidacaoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> SEM_PILHA = ThreadLocal.withInitial(() -> new int[1]);
+
+    protected ValidacaoException(String mensagem) {
+        this(mensagem, SEM_PILHA.get()[0] == 0);
+    }
+
+    private ValidacaoException(String mensagem, boolean completa) {
+        super(mensagem, null, completa, completa);
+    }
+
+    public static <T> T semPilha(Supplier<T> validacao) {
+        int[] profundidade = SEM_PILHA.get();
+        profundidade[0]++;
+        try {
+            return validacao.get();
+        } finally {
+            profundidade[0]--;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class ValorNaoBooleanoException extends RuntimeException {
+public class ValorNaoBooleanoException extends ValidacaoException {
     public ValorNaoBooleanoException() {
         super("Valor deve ser true ou false.");
     }
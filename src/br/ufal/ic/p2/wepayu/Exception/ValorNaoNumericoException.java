@@ -1,6 +1,6 @@
 package br.ufal.ic.p2.wepayu.Exception;
 
-public class ValorNaoNumericoException extends RuntimeException {
+public class ValorNaoNumericoException extends ValidacaoException {
     public ValorNaoNumericoException() {
         super("Valor deve ser numerico.");
     }
@@ -2,69 +2,111 @@ package br.ufal.ic.p2.wepayu;
 
 import br.ufal.ic.p2.wepayu.Exception.*;
 import br.ufal.ic.p2.wepayu.models.*;
+import br.ufal.ic.p2.wepayu.repository.DiarioRepository;
+import br.ufal.ic.p2.wepayu.repository.DiarioRepository.Operacao;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import br.ufal.ic.p2.wepayu.repository.PersistenciaRepository;
 import br.ufal.ic.p2.wepayu.service.EmpregadoService;
 import br.ufal.ic.p2.wepayu.service.FolhaPagamentoService;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class Facade {
+    // Diretório do snapshot e do diário quando a Facade é criada sem argumentos (o EasyAccept cria assim)
+    public static final String PROPRIEDADE_DADOS = "wepayu.dados";
+    // Orçamento de memória do histórico de undo, em bytes; o que passa dele vai para o disco
+    public static final String PROPRIEDADE_LIMITE_HISTORICO = "wepayu.historico.bytes";
+
     private final EmpregadoService empregadoService;
     private final FolhaPagamentoService folhaPagamentoService;
     private final HistoricoSistema historico;
-
-    private Map<String,Empregado> empregados = new LinkedHashMap<>();
-    private Map<String, Empregado> sindicatos = new LinkedHashMap<>();
-    private int contador = 0, proximoId = 0;
-
-    public Facade(EmpregadoService empregadoService,FolhaPagamentoService folhaPagamentoService, HistoricoSistema historico) {
+    private final PersistenciaRepository persistencia;
+    private final DiarioRepository diario;
+    private final EmpregadoRepository repositorio;
+    private boolean reaplicando = false;
+    private List<String[]> loteReaplicado = new ArrayList<>();
+
+    // Pode ser usada por várias threads. Mudanças de estrutura rodam sozinhas; lançamentos (cartão, venda,
+    // taxa) em empregados diferentes rodam em paralelo; consultas não travam. O diário é gravado dentro da
+    // mesma seção da mudança, para que a ordem dele seja a ordem em que as mudanças aconteceram.
+    public Facade(EmpregadoService empregadoService,FolhaPagamentoService folhaPagamentoService, HistoricoSistema historico,
+                  PersistenciaRepository persistencia, DiarioRepository diario) {
         this.empregadoService = empregadoService;
         this.folhaPagamentoService = folhaPagamentoService;
         this.historico = historico;
+        this.persistencia = persistencia;
+        this.diario = diario;
+        this.repositorio = empregadoService.getEmpregadoRepository();
+        repositorio.exclusivo(this::recuperar);
     }
 
     public Facade() {
-        this.empregados = new LinkedHashMap<>();
-        this.sindicatos = new LinkedHashMap<>();
-        this.contador = 1;
-        this.proximoId = 0;
-        var empregadoRepository = new br.ufal.ic.p2.wepayu.repository.EmpregadoRepository(empregados, sindicatos, contador, proximoId);
-        this.empregadoService = new EmpregadoService(empregadoRepository);
-        this.folhaPagamentoService = new FolhaPagamentoService();
-        this.historico = new HistoricoSistema();
+        this(Path.of(System.getProperty(PROPRIEDADE_DADOS, ".")));
+    }
+
+    // Carrega o snapshot e reaplica o diário encontrados em 'dados' (criado se não existir).
+    // O diário fica travado enquanto a Facade existir: outra Facade no mesmo diretório falha.
+    public Facade(Path dados) {
+        this(new EmpregadoRepository(TabelaEmpregados.vazia(), new LinkedHashMap<>(), 1, 0),
+                new HistoricoSistema(Long.getLong(PROPRIEDADE_LIMITE_HISTORICO, HistoricoSistema.LIMITE_PADRAO_BYTES)), dados);
+    }
+
+    private Facade(EmpregadoRepository empregadoRepository, HistoricoSistema historico, Path dados) {
+        this(new EmpregadoService(empregadoRepository, historico),
+                new FolhaPagamentoService(empregadoRepository, historico),
+                historico,
+                new PersistenciaRepository(empregadoRepository, dados.resolve(PersistenciaRepository.ARQUIVO_PADRAO)),
+                new DiarioRepository(dados.resolve(DiarioRepository.ARQUIVO_PADRAO)));
     }
 
     public void zerarSistema() {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
-        empregados.clear();
-        sindicatos.clear();
-        contador = 1;
-        proximoId = 0;
+        repositorio.exclusivo(() -> {
+            empregadoService.zerarSistema();
+            registra(Operacao.ZERAR_SISTEMA);
+        });
+        concluiEscrita();
     }
 
     // ---------------- Criar Empregado Horista ou Assalariado ----------------
     public String criarEmpregado (String nome, String endereco, String tipo, String salario) {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);;
-        return empregadoService.criarEmpregado(nome, endereco, tipo, salario);
+        String id = repositorio.exclusivo(() -> {
+            int numero = empregadoService.criarEmpregado(nome, endereco, tipo, salario);
+            registra(Operacao.CRIAR_EMPREGADO, nome, endereco, tipo, salario);
+            return IdEmpregado.formata(numero);
+        });
+        concluiEscrita();
+        return id;
     }
 
     // ---------------- Criar Empregado Comissionado ----------------
     public String criarEmpregado (String nome, String endereco, String tipo, String salario, String comissao) {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);;
-        return empregadoService.criarEmpregado(nome, endereco, tipo, salario, comissao);
+        String id = repositorio.exclusivo(() -> {
+            int numero = empregadoService.criarEmpregado(nome, endereco, tipo, salario, comissao);
+            registra(Operacao.CRIAR_EMPREGADO, nome, endereco, tipo, salario, comissao);
+            return IdEmpregado.formata(numero);
+        });
+        concluiEscrita();
+        return id;
     }
 
     // ---------------- Remover Empregado ----------------
     public void removerEmpregado (String emp) {
-        empregadoService.identificacaoEmpregadoNula(emp);
-        empregadoService.contemEmpregado(emp);
-
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);;
-        empregadoService.removerEmpregado(emp);
+        int id = IdEmpregado.interpreta(emp);
+        repositorio.exclusivo(() -> {
+            empregadoService.identificacaoEmpregadoNula(id);
+            empregadoService.contemEmpregado(id);
+
+            empregadoService.removerEmpregado(id);
+            registra(Operacao.REMOVER_EMPREGADO, emp);
+        });
+        concluiEscrita();
     }
 
     // ---------------- Obter atributos do empregado ----------------
     public String getAtributoEmpregado(String emp, String atributo) {
-        return empregadoService.getAtributoEmpregado(emp, atributo);
+        return empregadoService.getAtributoEmpregado(IdEmpregado.interpreta(emp), atributo);
     }
 
     public int getNumeroDeEmpregados() {
@@ -72,91 +114,384 @@ public class Facade {
     }
 
     // ---------------- Pilha de Comandos ----------------
-    private void salvarEstado() {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
+    // Um undo/redo que atinge comando anterior ao último checkpoint não tem como ser reaplicado
+    // a partir do snapshot; nesse caso o estado resultante vira o novo checkpoint.
+    public void undo() {
+        repositorio.exclusivo(() -> {
+            boolean reaplicavel = historico.proximoDesfazerAposMarca();
+            historico.desfazer();
+            if (reaplicavel) {
+                registra(Operacao.UNDO);
+            } else if (!reaplicando) {
+                checkpoint();
+            }
+        });
+        concluiEscrita();
     }
 
-    public void undo() {
-        EstadoSistema estadoAnterior = historico.desfazer();
-        this.empregados = estadoAnterior.empregadosBackup;
-        this.sindicatos = estadoAnterior.sindicatosBackup;
-        this.contador = estadoAnterior.contadorBackup;
-        this.proximoId = estadoAnterior.proximoIdBackup;
+    public void redo() {
+        repositorio.exclusivo(() -> {
+            boolean reaplicavel = historico.proximoRefazerAposMarca();
+            historico.refazer();
+            if (reaplicavel) {
+                registra(Operacao.REDO);
+            } else if (!reaplicando) {
+                checkpoint();
+            }
+        });
+        concluiEscrita();
     }
 
 
     // ---------------- Buscar empregado pelo nome ----------------
     public String getEmpregadoPorNome(String nome, int indice) {
-        return empregadoService.getEmpregadoPorNome(nome, indice);
+        return repositorio.compartilhado(() -> IdEmpregado.formata(empregadoService.getEmpregadoPorNome(nome, indice)));
     }
 
     // ---------------- Horas trabalhadas (apenas para horista) ----------------
     public void lancaCartao(String emp, String data, String horas) {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
-        empregadoService.lancaCartao(emp, data, horas);
+        repositorio.compartilhado(() -> empregadoService.lancaCartao(IdEmpregado.interpreta(emp), data, horas,
+                () -> registra(Operacao.LANCA_CARTAO, emp, data, horas)));
+        concluiEscrita();
     }
 
 
     public String getHorasNormaisTrabalhadas(String emp, String dataInicial, String dataFinal) {
-        return empregadoService.getHorasNormaisTrabalhadas(emp, dataInicial, dataFinal);
+        return empregadoService.getHorasNormaisTrabalhadas(IdEmpregado.interpreta(emp), dataInicial, dataFinal);
     }
 
     public String getHorasExtrasTrabalhadas(String emp, String dataInicial, String dataFinal) {
-        return empregadoService.getHorasExtrasTrabalhadas(emp, dataInicial, dataFinal);
+        return empregadoService.getHorasExtrasTrabalhadas(IdEmpregado.interpreta(emp), dataInicial, dataFinal);
     }
 
     // ---------------- Lança Venda (apenas para comissionado) ----------------
     public void lancaVenda(String emp, String data, String valor) {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
-        empregadoService.lancaVenda(emp, data, valor);
+        repositorio.compartilhado(() -> empregadoService.lancaVenda(IdEmpregado.interpreta(emp), data, valor,
+                () -> registra(Operacao.LANCA_VENDA, emp, data, valor)));
+        concluiEscrita();
     }
 
     public String getVendasRealizadas(String emp, String dataInicial, String dataFinal) {
-        return empregadoService.getVendasRealizadas(emp, dataInicial, dataFinal);
+        return empregadoService.getVendasRealizadas(IdEmpregado.interpreta(emp), dataInicial, dataFinal);
     }
 
     // ---------------- Atualiza Empregado ----------------
     public void alteraEmpregado(String emp, String atributo, String valor) {
-        empregadoService.alteraEmpregado(emp, atributo, valor);
+        repositorio.exclusivo(() -> {
+            empregadoService.alteraEmpregado(IdEmpregado.interpreta(emp), atributo, valor);
+            registra(Operacao.ALTERA_EMPREGADO, emp, atributo, valor);
+        });
+        concluiEscrita();
     }
 
     public void alteraEmpregado(String emp, String atributo, String valor, String idSindicato, String taxaSindical) {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
-        empregadoService.alteraEmpregado(emp, atributo, valor, idSindicato, taxaSindical);
+        repositorio.exclusivo(() -> {
+            empregadoService.alteraEmpregado(IdEmpregado.interpreta(emp), atributo, valor, idSindicato, taxaSindical);
+            registra(Operacao.ALTERA_EMPREGADO, emp, atributo, valor, idSindicato, taxaSindical);
+        });
+        concluiEscrita();
     }
 
     public void alteraEmpregado(String emp, String atributo, String valor1, String banco, String agencia, String contaCorrente) {
-        empregadoService.contemEmpregado(emp);
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
-        empregadoService.alteraEmpregado(emp, atributo, valor1, banco, agencia, contaCorrente);
+        int id = IdEmpregado.interpreta(emp);
+        repositorio.exclusivo(() -> {
+            empregadoService.contemEmpregado(id);
+            empregadoService.alteraEmpregado(id, atributo, valor1, banco, agencia, contaCorrente);
+            registra(Operacao.ALTERA_EMPREGADO, emp, atributo, valor1, banco, agencia, contaCorrente);
+        });
+        concluiEscrita();
     }
 
     public void alteraEmpregado(String emp, String atributo, String valor, String comissao) {
-        empregadoService.contemEmpregado(emp);
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
-        empregadoService.alteraEmpregado(emp, atributo, valor, comissao);
+        int id = IdEmpregado.interpreta(emp);
+        repositorio.exclusivo(() -> {
+            empregadoService.contemEmpregado(id);
+            empregadoService.alteraEmpregado(id, atributo, valor, comissao);
+            registra(Operacao.ALTERA_EMPREGADO, emp, atributo, valor, comissao);
+        });
+        concluiEscrita();
     }
 
     // ---------------- Taxas de Serviço ----------------
     public String getTaxasServico(String emp, String dataInicial, String dataFinal) {
-        empregadoService.contemEmpregado(emp);
-        return empregadoService.getTaxasServico(emp, dataInicial, dataFinal);
+        int id = IdEmpregado.interpreta(emp);
+        empregadoService.contemEmpregado(id);
+        return empregadoService.getTaxasServico(id, dataInicial, dataFinal);
     }
 
     public void lancaTaxaServico(String membro, String data, String valor) throws MembroNaoExisteException {
-        historico.salvarEstado(empregados, sindicatos, contador, proximoId);
-        empregadoService.lancaTaxaServico(membro, data, valor);
+        repositorio.compartilhado(() -> empregadoService.lancaTaxaServico(membro, data, valor,
+                () -> registra(Operacao.LANCA_TAXA_SERVICO, membro, data, valor)));
+        concluiEscrita();
+    }
+
+    // ---------------- Lançamentos em lote ----------------
+    // Registros {emp, data, horas}, {emp, data, valor} e {membro, data, valor}, validados todos antes de
+    // qualquer mudança e desfeitos com um undo só. Exclusivos: nenhum lançamento avulso entra no meio
+    // do lote, nem no histórico nem no diário.
+    public void lancaCartoes(String[][] registros) {
+        lancaCartoes(Arrays.asList(registros));
+    }
+
+    public void lancaCartoes(Iterable<String[]> registros) {
+        List<String[]> lista = lista(registros);
+        repositorio.exclusivo(() -> empregadoService.lancaCartoes(lista,
+                () -> registraLote(Operacao.LANCA_CARTOES, lista, true)));
+        concluiEscrita();
+    }
+
+    public void lancaVendas(String[][] registros) {
+        lancaVendas(Arrays.asList(registros));
+    }
+
+    public void lancaVendas(Iterable<String[]> registros) {
+        List<String[]> lista = lista(registros);
+        repositorio.exclusivo(() -> empregadoService.lancaVendas(lista,
+                () -> registraLote(Operacao.LANCA_VENDAS, lista, true)));
+        concluiEscrita();
+    }
+
+    public void lancaTaxasServico(String[][] registros) {
+        lancaTaxasServico(Arrays.asList(registros));
+    }
+
+    public void lancaTaxasServico(Iterable<String[]> registros) {
+        List<String[]> lista = lista(registros);
+        repositorio.exclusivo(() -> empregadoService.lancaTaxasServico(lista,
+                () -> registraLote(Operacao.LANCA_TAXAS_SERVICO, lista, true)));
+        concluiEscrita();
+    }
+
+    // Os mesmos lotes em texto, para quem só passa strings (os scripts de aceitação): registros separados
+    // por '|', campos por ';', como "emp1;3/1/2005;8|emp2;3/1/2005;4,5". Nomes próprios porque o EasyAccept
+    // escolhe o método só pelo nome e pelo número de argumentos.
+    public void lancaCartoesEmLote(String registros) {
+        lancaCartoes(registros(registros));
+    }
+
+    public void lancaVendasEmLote(String registros) {
+        lancaVendas(registros(registros));
+    }
+
+    public void lancaTaxasServicoEmLote(String registros) {
+        lancaTaxasServico(registros(registros));
+    }
+
+    // Um registro com campos de menos ou de mais segue adiante e é recusado na validação do lote
+    private static List<String[]> registros(String texto) {
+        List<String[]> lista = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return lista;
+        }
+        for (String registro : texto.split("\\|", -1)) {
+            lista.add(registro.split(";", -1));
+        }
+        return lista;
+    }
+
+    // O diário precisa dos registros de novo depois da validação, e um Iterable pode ser de uma passada só
+    private static List<String[]> lista(Iterable<String[]> registros) {
+        if (registros instanceof List<String[]> lista) {
+            return lista;
+        }
+        List<String[]> lista = new ArrayList<>();
+        registros.forEach(lista::add);
+        return lista;
+    }
+
+    // ---------------- Importação de arquivos ----------------
+    // Um lançamento por linha ("emp;data;horas", "emp;data;valor", "membro;data;valor"); as linhas válidas
+    // entram como um lote só, desfeito com um undo, e as recusadas vão para 'rejeitados' com o erro.
+    // No diário a importação fica como o lote dos registros aceitos, sem depender do arquivo depois.
+    public String importaCartoes(String arquivo, String rejeitados) {
+        int aceitos = repositorio.exclusivo(() -> empregadoService.importaCartoes(arquivo, rejeitados,
+                parte -> registraLote(Operacao.LANCA_CARTOES, parte, false),
+                () -> registraLote(Operacao.LANCA_CARTOES, List.of(), true)));
+        concluiEscrita();
+        return String.valueOf(aceitos);
+    }
+
+    public String importaVendas(String arquivo, String rejeitados) {
+        int aceitos = repositorio.exclusivo(() -> empregadoService.importaVendas(arquivo, rejeitados,
+                parte -> registraLote(Operacao.LANCA_VENDAS, parte, false),
+                () -> registraLote(Operacao.LANCA_VENDAS, List.of(), true)));
+        concluiEscrita();
+        return String.valueOf(aceitos);
+    }
+
+    public String importaTaxasServico(String arquivo, String rejeitados) {
+        int aceitos = repositorio.exclusivo(() -> empregadoService.importaTaxasServico(arquivo, rejeitados,
+                parte -> registraLote(Operacao.LANCA_TAXAS_SERVICO, parte, false),
+                () -> registraLote(Operacao.LANCA_TAXAS_SERVICO, List.of(), true)));
+        concluiEscrita();
+        return String.valueOf(aceitos);
     }
 
     // ---------------- Folha de Pagamento ----------------
+    // Só leitura: as datas de pagamento avançam na rodaFolha, então o total fica fora do diário e do histórico
     public String totalFolha(String dataStr) {
-        return folhaPagamentoService.totalFolha(dataStr);
+        return repositorio.compartilhado(() -> folhaPagamentoService.totalFolha(dataStr));
     }
 
+    // Na reaplicação do diário a folha só acerta as datas: o relatório já foi entregue e não é reescrito
     public void rodaFolha(String dataStr, String saida) {
-        folhaPagamentoService.rodaFolha(dataStr, saida);
+        repositorio.exclusivo(() -> {
+            folhaPagamentoService.rodaFolha(dataStr, saida, !reaplicando);
+            registra(Operacao.RODA_FOLHA, dataStr, saida);
+        });
+        concluiEscrita();
     }
 
+    // Uma folha por dia de pagamento do período, em "<prefixo>-<aaaa-mm-dd>.txt"; desfeita com um undo só
+    public void rodaFolhaPeriodo(String dataInicial, String dataFinal, String prefixo) {
+        repositorio.exclusivo(() -> {
+            folhaPagamentoService.rodaFolhaPeriodo(dataInicial, dataFinal, prefixo, !reaplicando);
+            registra(Operacao.RODA_FOLHA_PERIODO, dataInicial, dataFinal, prefixo);
+        });
+        concluiEscrita();
+    }
+
+
+    public void encerrarSistema() {
+        repositorio.exclusivo(() -> {
+            checkpoint();
+            historico.encerrar();
+        });
+    }
 
-    public void encerrarSistema() {}
+    // Joga fora o estado em memória e o remonta do snapshot e do diário, como na partida depois de uma
+    // queda: o que foi aceito até aqui volta igual. Como na partida, o histórico de undo fica vazio.
+    public void recarregarSistema() {
+        repositorio.exclusivo(() -> {
+            diario.fechar();
+            repositorio.zerar();
+            recuperar();
+        });
+    }
+
+    // ---------------- Diário e checkpoints ----------------
+    // Snapshot + reaplicação do diário. Como depois de encerrarSistema, a sessão começa sem histórico de undo.
+    private void recuperar() {
+        long sequencia = persistencia.carregar();
+        reaplicando = true;
+        try {
+            diario.abrir(sequencia, this::reaplica);
+        } finally {
+            reaplicando = false;
+        }
+        if (diario.getRegistrosDesdeCheckpoint() > 0) {
+            checkpoint();
+        }
+        historico.limpar();
+    }
+
+    private void registra(Operacao operacao, String... argumentos) {
+        if (!reaplicando) {
+            diario.registrar(operacao, argumentos);
+        }
+    }
+
+    // Um registro do diário leva no máximo 127 argumentos, então o lote vai em partes de até
+    // REGISTROS_POR_PARTE lançamentos; só a última é marcada com "fim", e a reaplicação junta as
+    // partes antes de lançar. Um lote cortado por uma queda no meio das partes não é reaplicado.
+    // A importação grava as partes conforme aplica os blocos e fecha com uma parte "fim" vazia.
+    private static final int REGISTROS_POR_PARTE = 40;
+
+    private void registraLote(Operacao operacao, List<String[]> registros, boolean ultimo) {
+        if (reaplicando) {
+            return;
+        }
+        if (registros.isEmpty() && ultimo) {
+            diario.registrar(operacao, "fim");
+        }
+        for (int i = 0; i < registros.size(); i += REGISTROS_POR_PARTE) {
+            int fim = Math.min(registros.size(), i + REGISTROS_POR_PARTE);
+            String[] argumentos = new String[1 + 3 * (fim - i)];
+            argumentos[0] = ultimo && fim == registros.size() ? "fim" : "parte";
+            int a = 1;
+            for (int j = i; j < fim; j++) {
+                String[] r = registros.get(j);
+                argumentos[a++] = r[0];
+                argumentos[a++] = r[1];
+                argumentos[a++] = r[2];
+            }
+            diario.registrar(operacao, argumentos);
+        }
+    }
+
+    private void reaplicaLote(String[] a, Consumer<List<String[]>> lanca) {
+        for (int i = 1; i + 2 < a.length; i += 3) {
+            loteReaplicado.add(new String[]{a[i], a[i + 1], a[i + 2]});
+        }
+        if (a[0].equals("fim")) {
+            List<String[]> lote = loteReaplicado;
+            loteReaplicado = new ArrayList<>();
+            lanca.accept(lote);
+        }
+    }
+
+    // Fim de toda escrita, já fora de qualquer seção: espera o grupo do diário com o registro desta thread
+    // passar pelo force() (as outras threads seguem registrando no grupo seguinte) e faz o checkpoint se
+    // for a hora. Se o grupo não chegou ao disco, um checkpoint grava o estado inteiro: a operação fica
+    // durável pelo snapshot, e o diário volta a aceitar registros.
+    private void concluiEscrita() {
+        if (reaplicando) {
+            return;
+        }
+        try {
+            diario.aguardarDuravel();
+        } catch (ErroGeracaoArquivoException e) {
+            repositorio.exclusivo(this::checkpoint);
+        }
+        checkpointSePreciso();
+    }
+
+    // Fora de qualquer seção: o checkpoint precisa do sistema parado, e um lançamento em andamento
+    // não consegue subir da trava compartilhada para a exclusiva
+    private void checkpointSePreciso() {
+        if (!reaplicando && diario.precisaCheckpoint()) {
+            repositorio.exclusivo(() -> {
+                if (diario.precisaCheckpoint()) {
+                    checkpoint();
+                }
+            });
+        }
+    }
+
+    // O snapshot guarda a sequência do diário; se cair antes do truncar, a reaplicação pula o que ele já contém
+    private void checkpoint() {
+        persistencia.salvar(diario.getSequencia());
+        diario.truncar();
+        historico.marcar();
+    }
+
+    private void reaplica(DiarioRepository.Registro registro) {
+        String[] a = registro.getArgumentos();
+        switch (registro.getOperacao()) {
+            case ZERAR_SISTEMA -> zerarSistema();
+            case CRIAR_EMPREGADO -> {
+                if (a.length == 5) criarEmpregado(a[0], a[1], a[2], a[3], a[4]);
+                else criarEmpregado(a[0], a[1], a[2], a[3]);
+            }
+            case REMOVER_EMPREGADO -> removerEmpregado(a[0]);
+            case LANCA_CARTAO -> lancaCartao(a[0], a[1], a[2]);
+            case LANCA_VENDA -> lancaVenda(a[0], a[1], a[2]);
+            case LANCA_TAXA_SERVICO -> lancaTaxaServico(a[0], a[1], a[2]);
+            case ALTERA_EMPREGADO -> {
+                switch (a.length) {
+                    case 3 -> alteraEmpregado(a[0], a[1], a[2]);
+                    case 4 -> alteraEmpregado(a[0], a[1], a[2], a[3]);
+                    case 5 -> alteraEmpregado(a[0], a[1], a[2], a[3], a[4]);
+                    default -> alteraEmpregado(a[0], a[1], a[2], a[3], a[4], a[5]);
+                }
+            }
+            case RODA_FOLHA -> rodaFolha(a[0], a[1]);
+            case RODA_FOLHA_PERIODO -> rodaFolhaPeriodo(a[0], a[1], a[2]);
+            case UNDO -> undo();
+            case REDO -> redo();
+            case LANCA_CARTOES -> reaplicaLote(a, this::lancaCartoes);
+            case LANCA_VENDAS -> reaplicaLote(a, this::lancaVendas);
+            case LANCA_TAXAS_SERVICO -> reaplicaLote(a, this::lancaTaxasServico);
+        }
+    }
 }
\ No newline at end of file
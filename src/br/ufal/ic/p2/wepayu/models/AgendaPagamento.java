@@ -0,0 +1,142 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import br.ufal.ic.p2.wepayu.Exception.DescricaoAgendaInvalidaException;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Agenda de pagamento compilada a partir da descrição: "semanal D", "semanal K D" (a cada K semanas,
+// D = 1 segunda ... 7 domingo), "mensal D" (1 a 28) ou "mensal $" (último dia do mês).
+// A descrição é interpretada uma vez só; depois, próximo pagamento e dia de pagamento são contas
+// sobre o dia epoch, sem percorrer calendário.
+public final class AgendaPagamento {
+    private static final Map<String, AgendaPagamento> COMPILADAS = new ConcurrentHashMap<>();
+
+    // Agendas padrão de cada tipo
+    public static final AgendaPagamento SEMANAL_5 = de("semanal 5");
+    public static final AgendaPagamento MENSAL_ULTIMO = de("mensal $");
+    public static final AgendaPagamento SEMANAL_2_5 = de("semanal 2 5");
+
+    private static final int ULTIMO_DIA = 0;
+
+    private final String descricao;
+    private final boolean semanal;
+    private final int semanas;     // semanal: de quantas em quantas semanas
+    private final int dia;         // semanal: dia da semana (1-7); mensal: dia do mês ou ULTIMO_DIA
+
+    private AgendaPagamento(String descricao, boolean semanal, int semanas, int dia) {
+        this.descricao = descricao;
+        this.semanal = semanal;
+        this.semanas = semanas;
+        this.dia = dia;
+    }
+
+    public static AgendaPagamento de(String descricao) {
+        if (descricao == null) {
+            throw new DescricaoAgendaInvalidaException();
+        }
+        AgendaPagamento agenda = COMPILADAS.get(descricao);
+        return agenda != null ? agenda : COMPILADAS.computeIfAbsent(descricao, AgendaPagamento::compila);
+    }
+
+    private static AgendaPagamento compila(String descricao) {
+        String[] partes = descricao.split(" ");
+        if (partes[0].equals("semanal") && partes.length == 2) {
+            return new AgendaPagamento(descricao, true, 1, numero(partes[1], 1, 7));
+        }
+        if (partes[0].equals("semanal") && partes.length == 3) {
+            return new AgendaPagamento(descricao, true, numero(partes[1], 1, 52), numero(partes[2], 1, 7));
+        }
+        if (partes[0].equals("mensal") && partes.length == 2) {
+            return new AgendaPagamento(descricao, false, 0, partes[1].equals("$") ? ULTIMO_DIA : numero(partes[1], 1, 28));
+        }
+        throw new DescricaoAgendaInvalidaException();
+    }
+
+    private static int numero(String s, int minimo, int maximo) {
+        if (s.isEmpty() || s.length() > 2 || s.charAt(0) == '0') {
+            throw new DescricaoAgendaInvalidaException();
+        }
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DescricaoAgendaInvalidaException();
+            }
+            n = n * 10 + (c - '0');
+        }
+        if (n < minimo || n > maximo) {
+            throw new DescricaoAgendaInvalidaException();
+        }
+        return n;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    // Só as agendas de várias semanas dependem de quando a contagem começa
+    public boolean precisaDeInicio() {
+        return semanal && semanas > 1;
+    }
+
+    // Primeiro pagamento de quem foi contratado em dataContrato: a contagem de K semanas começa
+    // no dia D da K-ésima semana (para "semanal 2 5", a sexta da segunda semana).
+    // null quando a agenda não depende do início ou não há data de contrato.
+    public LocalDate primeiroPagamento(LocalDate dataContrato) {
+        if (!precisaDeInicio() || dataContrato == null) {
+            return null;
+        }
+        long d = dataContrato.toEpochDay() + 7L * (semanas - 1);
+        return LocalDate.ofEpochDay(d + Math.floorMod(dia - diaDaSemana(d), 7));
+    }
+
+    // Primeiro dia de pagamento em ou depois de 'data'; null se a agenda precisa de início e não tem
+    public LocalDate proximoPagamento(LocalDate data, LocalDate primeiro) {
+        if (!semanal) {
+            if (dia == ULTIMO_DIA) {
+                return data.withDayOfMonth(data.lengthOfMonth());
+            }
+            return data.getDayOfMonth() <= dia ? data.withDayOfMonth(dia) : data.plusMonths(1).withDayOfMonth(dia);
+        }
+        long d = data.toEpochDay();
+        if (semanas == 1) {
+            return LocalDate.ofEpochDay(d + Math.floorMod(dia - diaDaSemana(d), 7));
+        }
+        if (primeiro == null) {
+            return null;
+        }
+        long inicio = primeiro.toEpochDay();
+        if (d <= inicio) {
+            return primeiro;
+        }
+        long periodo = 7L * semanas;
+        return LocalDate.ofEpochDay(inicio + (d - inicio + periodo - 1) / periodo * periodo);
+    }
+
+    public boolean ehDiaDePagamento(LocalDate data, LocalDate primeiro) {
+        if (!semanal) {
+            return data.getDayOfMonth() == (dia == ULTIMO_DIA ? data.lengthOfMonth() : dia);
+        }
+        long d = data.toEpochDay();
+        if (semanas == 1) {
+            return diaDaSemana(d) == dia;
+        }
+        if (primeiro == null) {
+            return false;
+        }
+        long desde = d - primeiro.toEpochDay();
+        return desde >= 0 && desde % (7L * semanas) == 0;
+    }
+
+    // 1 = segunda ... 7 = domingo; o dia epoch 0 (1970-01-01) foi uma quinta
+    private static int diaDaSemana(long diaEpoch) {
+        return (int) Math.floorMod(diaEpoch + 3, 7L) + 1;
+    }
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
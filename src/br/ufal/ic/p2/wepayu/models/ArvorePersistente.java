@@ -0,0 +1,155 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Árvore de busca imutável (treap): insere/remove copiam só o caminho até a chave, O(log n) esperado,
+// e devolvem uma nova versão; a iteração percorre os valores em ordem crescente de chave.
+public final class ArvorePersistente<K extends Comparable<? super K>, V> implements Iterable<V> {
+    private static final ArvorePersistente<?, ?> VAZIA = new ArvorePersistente<>(null, 0);
+
+    private static final class No<K, V> {
+        final K chave;
+        final V valor;
+        final int prioridade;
+        final No<K, V> esquerda;
+        final No<K, V> direita;
+
+        No(K chave, V valor, int prioridade, No<K, V> esquerda, No<K, V> direita) {
+            this.chave = chave;
+            this.valor = valor;
+            this.prioridade = prioridade;
+            this.esquerda = esquerda;
+            this.direita = direita;
+        }
+
+        No<K, V> comFilhos(No<K, V> esquerda, No<K, V> direita) {
+            return new No<>(chave, valor, prioridade, esquerda, direita);
+        }
+    }
+
+    private final No<K, V> raiz;
+    private final int tamanho;
+
+    private ArvorePersistente(No<K, V> raiz, int tamanho) {
+        this.raiz = raiz;
+        this.tamanho = tamanho;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K extends Comparable<? super K>, V> ArvorePersistente<K, V> vazia() {
+        return (ArvorePersistente<K, V>) VAZIA;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public V get(K chave) {
+        No<K, V> no = raiz;
+        while (no != null) {
+            int c = chave.compareTo(no.chave);
+            if (c == 0) return no.valor;
+            no = c < 0 ? no.esquerda : no.direita;
+        }
+        return null;
+    }
+
+    // Chave já presente: troca o valor
+    public ArvorePersistente<K, V> insere(K chave, V valor) {
+        int novoTamanho = get(chave) == null ? tamanho + 1 : tamanho;
+        return new ArvorePersistente<>(insere(raiz, chave, valor, ThreadLocalRandom.current().nextInt()), novoTamanho);
+    }
+
+    public ArvorePersistente<K, V> remove(K chave) {
+        if (get(chave) == null) {
+            return this;
+        }
+        return new ArvorePersistente<>(remove(raiz, chave), tamanho - 1);
+    }
+
+    private No<K, V> insere(No<K, V> no, K chave, V valor, int prioridade) {
+        if (no == null) {
+            return new No<>(chave, valor, prioridade, null, null);
+        }
+        int c = chave.compareTo(no.chave);
+        if (c == 0) {
+            return new No<>(chave, valor, no.prioridade, no.esquerda, no.direita);
+        }
+        if (c < 0) {
+            No<K, V> e = insere(no.esquerda, chave, valor, prioridade);
+            if (e.prioridade > no.prioridade) { // rotação à direita
+                return e.comFilhos(e.esquerda, no.comFilhos(e.direita, no.direita));
+            }
+            return no.comFilhos(e, no.direita);
+        }
+        No<K, V> d = insere(no.direita, chave, valor, prioridade);
+        if (d.prioridade > no.prioridade) { // rotação à esquerda
+            return d.comFilhos(no.comFilhos(no.esquerda, d.esquerda), d.direita);
+        }
+        return no.comFilhos(no.esquerda, d);
+    }
+
+    private No<K, V> remove(No<K, V> no, K chave) {
+        int c = chave.compareTo(no.chave);
+        if (c == 0) {
+            return junta(no.esquerda, no.direita);
+        }
+        return c < 0
+                ? no.comFilhos(remove(no.esquerda, chave), no.direita)
+                : no.comFilhos(no.esquerda, remove(no.direita, chave));
+    }
+
+    // Todas as chaves de 'a' são menores que as de 'b'
+    private No<K, V> junta(No<K, V> a, No<K, V> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.prioridade > b.prioridade) {
+            return a.comFilhos(a.esquerda, junta(a.direita, b));
+        }
+        return b.comFilhos(junta(a, b.esquerda), b.direita);
+    }
+
+    // Esta árvore mais as entradas de 'outra' (chave repetida: fica o valor de 'outra'), O(m log n)
+    // para m entradas em 'outra'
+    public ArvorePersistente<K, V> insereTodas(ArvorePersistente<K, V> outra) {
+        return insereTodas(this, outra.raiz);
+    }
+
+    private static <K extends Comparable<? super K>, V> ArvorePersistente<K, V> insereTodas(ArvorePersistente<K, V> destino, No<K, V> no) {
+        for (; no != null; no = no.direita) {
+            destino = insereTodas(destino, no.esquerda);
+            destino = destino.insere(no.chave, no.valor);
+        }
+        return destino;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        Deque<No<K, V>> pilha = new ArrayDeque<>();
+        for (No<K, V> no = raiz; no != null; no = no.esquerda) {
+            pilha.push(no);
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !pilha.isEmpty();
+            }
+
+            @Override
+            public V next() {
+                if (pilha.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                No<K, V> no = pilha.pop();
+                for (No<K, V> filho = no.direita; filho != null; filho = filho.esquerda) {
+                    pilha.push(filho);
+                }
+                return no.valor;
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import br.ufal.ic.p2.wepayu.Exception.AtributoNaoExisteException;
+import br.ufal.ic.p2.wepayu.Exception.EmpregadoNaoComissionadoException;
+import br.ufal.ic.p2.wepayu.Exception.EmpregadoNaoRecebeBancoException;
+import br.ufal.ic.p2.wepayu.Exception.EmpregadoNaoSindicalizadoException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+// Os atributos de um empregado já no texto que getAtributoEmpregado devolve (dinheiro com vírgula,
+// booleano por extenso), montados uma vez por versão dos atributos e locale. Imutável: várias threads
+// leem a mesma projeção sem trava; a leitura é um get num mapa fixo e um índice, sem formatar nada.
+// Onde o atributo não se aplica (comissão de quem não é comissionado, ...) a posição guarda a exceção a lançar.
+public final class AtributosEmpregado {
+    private static final int NOME = 0, ENDERECO = 1, TIPO = 2, SALARIO = 3, COMISSAO = 4, SINDICALIZADO = 5,
+            METODO_PAGAMENTO = 6, BANCO = 7, AGENCIA = 8, CONTA_CORRENTE = 9, ID_SINDICATO = 10, TAXA_SINDICAL = 11;
+    private static final Map<String, Integer> POSICOES = Map.ofEntries(
+            Map.entry("nome", NOME), Map.entry("endereco", ENDERECO), Map.entry("tipo", TIPO),
+            Map.entry("salario", SALARIO), Map.entry("comissao", COMISSAO), Map.entry("sindicalizado", SINDICALIZADO),
+            Map.entry("metodoPagamento", METODO_PAGAMENTO), Map.entry("banco", BANCO), Map.entry("agencia", AGENCIA),
+            Map.entry("contaCorrente", CONTA_CORRENTE), Map.entry("idSindicato", ID_SINDICATO),
+            Map.entry("taxaSindical", TAXA_SINDICAL));
+
+    // Erros das posições que não se aplicam ao empregado (0: aplica)
+    private static final byte NAO_COMISSIONADO = 1, NAO_RECEBE_BANCO = 2, NAO_SINDICALIZADO = 3;
+
+    private final int versao;
+    private final Locale locale;
+    private final String[] valores = new String[12];
+    private final byte[] erros = new byte[12];
+
+    AtributosEmpregado(Empregado e, int versao, Locale locale) {
+        this.versao = versao;
+        this.locale = locale;
+        valores[NOME] = e.getNome();
+        valores[ENDERECO] = e.getEndereco();
+        valores[TIPO] = e.getTipo();
+        valores[SALARIO] = Dinheiro.formataComVirgula(e.getSalario());
+        if (e instanceof EmpregadoComissionado) {
+            valores[COMISSAO] = Dinheiro.formataComVirgula(e.getComissao());
+        } else {
+            erros[COMISSAO] = NAO_COMISSIONADO;
+        }
+        valores[SINDICALIZADO] = Boolean.toString(e.isSindicalizado());
+        valores[METODO_PAGAMENTO] = e.getMetodoPagamento();
+        if (e.recebeEmBanco()) {
+            valores[BANCO] = e.getBanco();
+            valores[AGENCIA] = e.getAgencia();
+            valores[CONTA_CORRENTE] = e.getContaCorrente();
+        } else {
+            erros[BANCO] = erros[AGENCIA] = erros[CONTA_CORRENTE] = NAO_RECEBE_BANCO;
+        }
+        if (e.isSindicalizado()) {
+            valores[ID_SINDICATO] = e.getIdSindicato();
+            valores[TAXA_SINDICAL] = Dinheiro.formataComVirgula(e.getTaxaSindical());
+        } else {
+            erros[ID_SINDICATO] = erros[TAXA_SINDICAL] = NAO_SINDICALIZADO;
+        }
+    }
+
+    boolean valePara(int versao, Locale locale) {
+        return this.versao == versao && this.locale.equals(locale);
+    }
+
+    public String get(String atributo) {
+        Integer posicao = POSICOES.get(Objects.requireNonNull(atributo));
+        if (posicao == null) {
+            throw new AtributoNaoExisteException();
+        }
+        switch (erros[posicao]) {
+            case NAO_COMISSIONADO -> throw new EmpregadoNaoComissionadoException();
+            case NAO_RECEBE_BANCO -> throw new EmpregadoNaoRecebeBancoException();
+            case NAO_SINDICALIZADO -> throw new EmpregadoNaoSindicalizadoException();
+            default -> {
+                return valores[posicao];
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.text.CollationKey;
+
+// Chave do índice de nomes: ordem de colação do nome e, no empate, ordem de cadastro (número do id)
+public final class ChaveNome implements Comparable<ChaveNome> {
+    private final CollationKey nome;
+    private final int id;
+
+    public ChaveNome(CollationKey nome, int id) {
+        this.nome = nome;
+        this.id = id;
+    }
+
+    @Override
+    public int compareTo(ChaveNome outra) {
+        int c = nome.compareTo(outra.nome);
+        return c != 0 ? c : Integer.compare(id, outra.id);
+    }
+}
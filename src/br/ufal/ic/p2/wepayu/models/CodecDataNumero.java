@@ -0,0 +1,197 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import br.ufal.ic.p2.wepayu.Exception.DataMomentoInvalidaException;
+
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+// Leitura das datas "d/M/aaaa" e dos números com vírgula decimal que chegam pela Facade, direto dos
+// caracteres: sem trim, split, String.format nem replace no caminho comum.
+// O resultado é sempre o do código antigo: data = LocalDate.parse(normalizarData(texto), "dd/MM/yyyy"),
+// número = Double.parseDouble(texto.replace(",", ".")), com os mesmos erros e mensagens. O que foge do
+// caminho rápido (espaços, sinais, dígitos não ASCII, anos fora de 1..9999, ...) passa pelo código antigo.
+public final class CodecDataNumero {
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Datas já vistas, por ano: CACHE_ANOS[ano - PRIMEIRO_ANO][(mes - 1) * 31 + dia - 1]
+    private static final int PRIMEIRO_ANO = 1900;
+    private static final LocalDate[][] CACHE_ANOS = new LocalDate[256][];
+
+    // Valor de leData para o texto que o caminho rápido não reconhece
+    private static final long FORA_DO_PADRAO = Long.MIN_VALUE;
+
+    // Potências de 10 exatas em double
+    private static final double[] POTENCIAS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15};
+    private static final int MAXIMO_DIGITOS = 15; // 10^15 < 2^53: a mantissa é exata
+
+    private static volatile Locale localeAscii; // último locale visto que escreve dígitos ASCII
+
+    private CodecDataNumero() {
+    }
+
+    // ---------------- Datas ----------------
+    public static LocalDate data(String texto, String momento) {
+        return data(leData(texto, momento));
+    }
+
+    // Primeira etapa (a do normalizarData): valida dia, mês e formato e devolve ano, mês e dia num long,
+    // sem resolver a data. Quem lê duas datas valida as duas antes de resolver, como o código antigo.
+    public static long leData(String texto, String momento) {
+        long lida = leDataRapido(texto);
+        return lida != FORA_DO_PADRAO ? lida : leDataLento(texto, momento);
+    }
+
+    // Segunda etapa (a do LocalDate.parse): o dia além do fim do mês vira o último dia, como o
+    // resolvedor SMART faz; anos fora de 1..9999 têm o erro (ou resultado) montado pelo próprio parse
+    public static LocalDate data(long lida) {
+        int ano = (int) (lida >> 9);
+        int mes = (int) (lida >> 5) & 0xF;
+        int dia = (int) lida & 0x1F;
+        if (ano < 1 || ano > 9999 || !digitosAscii()) {
+            return LocalDate.parse(String.format("%02d/%02d/%04d", dia, mes, ano), FORMATO);
+        }
+        int indiceAno = ano - PRIMEIRO_ANO;
+        if (indiceAno < 0 || indiceAno >= CACHE_ANOS.length) {
+            return resolve(ano, mes, dia);
+        }
+        LocalDate[] datas = CACHE_ANOS[indiceAno];
+        if (datas == null) {
+            datas = new LocalDate[12 * 31];
+            CACHE_ANOS[indiceAno] = datas;
+        }
+        int i = (mes - 1) * 31 + dia - 1;
+        LocalDate d = datas[i];
+        if (d == null) {
+            d = resolve(ano, mes, dia);
+            datas[i] = d; // LocalDate é imutável: uma corrida só calcula a mesma data duas vezes
+        }
+        return d;
+    }
+
+    private static LocalDate resolve(int ano, int mes, int dia) {
+        LocalDate primeiro = LocalDate.of(ano, mes, 1);
+        return primeiro.withDayOfMonth(Math.min(dia, primeiro.lengthOfMonth()));
+    }
+
+    private static long junta(int ano, int mes, int dia) {
+        return (long) ano << 9 | mes << 5 | dia;
+    }
+
+    // Só "d/m/a" com dígitos ASCII (até 9 por campo, sem estouro de int); qualquer outra coisa é do lento
+    private static long leDataRapido(String texto) {
+        if (texto == null) {
+            return FORA_DO_PADRAO;
+        }
+        int n = texto.length();
+        int dia = 0, mes = 0, valor = 0, campo = 0, digitos = 0;
+        for (int i = 0; i < n; i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitos > 9) {
+                    return FORA_DO_PADRAO;
+                }
+                valor = valor * 10 + (c - '0');
+            } else if (c == '/' && digitos > 0 && campo < 2) {
+                if (campo == 0) dia = valor;
+                else mes = valor;
+                campo++;
+                valor = 0;
+                digitos = 0;
+            } else {
+                return FORA_DO_PADRAO;
+            }
+        }
+        if (campo != 2 || digitos == 0 || dia < 1 || dia > 31 || mes < 1 || mes > 12 || (dia > 29 && mes == 2)) {
+            return FORA_DO_PADRAO; // o lento lança o erro com a mensagem de sempre
+        }
+        return junta(valor, mes, dia);
+    }
+
+    // As regras do normalizarData, sobre o texto original
+    private static long leDataLento(String data, String momento) {
+        if (data == null || data.trim().isEmpty()) {
+            throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+        }
+        String[] partes = data.trim().split("/");
+        if (partes.length != 3) {
+            throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+        }
+        try {
+            int dia = Integer.parseInt(partes[0]);
+            int mes = Integer.parseInt(partes[1]);
+            int ano = Integer.parseInt(partes[2]);
+            if (dia < 1 || dia > 31 || mes < 1 || mes > 12) {
+                throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+            }
+            if (dia > 29 && mes == 2) {
+                throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+            }
+            return junta(ano, mes, dia);
+        } catch (NumberFormatException e) {
+            throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+        }
+    }
+
+    // O texto normalizado ("dd/MM/aaaa") de uma data lida
+    public static String formata(long lida) {
+        return String.format("%02d/%02d/%04d", (int) lida & 0x1F, (int) (lida >> 5) & 0xF, (int) (lida >> 9));
+    }
+
+    // O String.format do código antigo escreve os dígitos do locale; o caminho rápido supõe ASCII
+    private static boolean digitosAscii() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        if (locale.equals(localeAscii)) {
+            return true;
+        }
+        if (DecimalFormatSymbols.getInstance(locale).getZeroDigit() != '0') {
+            return false;
+        }
+        localeAscii = locale;
+        return true;
+    }
+
+    // ---------------- Números ----------------
+    // Double.parseDouble(texto.replace(",", ".")): vírgula ou ponto decimal, inclusive o NumberFormatException
+    // (e o NullPointerException do texto nulo). Até 15 dígitos, mantissa / 10^casas é uma divisão exata
+    // arredondada uma vez só: o mesmo double do parse.
+    public static double decimal(String texto) {
+        int n = texto.length();
+        int i = 0;
+        boolean negativo = false;
+        if (n > 0 && (texto.charAt(0) == '-' || texto.charAt(0) == '+')) {
+            negativo = texto.charAt(0) == '-';
+            i = 1;
+        }
+        long mantissa = 0;
+        int digitos = 0;
+        int casas = -1;
+        for (; i < n; i++) {
+            char c = texto.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digitos > MAXIMO_DIGITOS) {
+                    return decimalLento(texto);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (casas >= 0) {
+                    casas++;
+                }
+            } else if ((c == ',' || c == '.') && casas < 0 && digitos > 0) {
+                casas = 0;
+            } else {
+                return decimalLento(texto);
+            }
+        }
+        if (digitos == 0 || casas == 0) { // "", "-", "5," e afins: o parse decide
+            return decimalLento(texto);
+        }
+        double v = casas > 0 ? mantissa / POTENCIAS[casas] : mantissa;
+        return negativo ? -v : v;
+    }
+
+    private static double decimalLento(String texto) {
+        return Double.parseDouble(texto.replace(",", "."));
+    }
+}
@@ -0,0 +1,61 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.io.Serializable;
+
+// Operação registrada no histórico: sabe desfazer e refazer apenas o que ela própria alterou.
+// Serializável para o histórico poder levar os comandos antigos para o disco (HistoricoSistema): o que
+// não é serializável (empregados, séries, serviços) vai como referência ao objeto vivo.
+public interface Comando extends Serializable {
+    // Custo típico de um comando pequeno (lambdas + referências capturadas + nó da pilha)
+    long BYTES_PADRAO = 96;
+
+    void desfazer();
+
+    void refazer();
+
+    // Estimativa da memória que o comando mantém viva enquanto está no histórico
+    default long bytesEstimados() {
+        return BYTES_PADRAO;
+    }
+
+    // Alvo das lambdas de desfazer/refazer: assim elas também são serializáveis
+    interface Acao extends Runnable, Serializable {
+    }
+
+    static Comando de(Acao desfazer, Acao refazer) {
+        return de(desfazer, refazer, BYTES_PADRAO);
+    }
+
+    static Comando de(Acao desfazer, Acao refazer, long bytesEstimados) {
+        return new Simples(desfazer, refazer, bytesEstimados);
+    }
+
+    final class Simples implements Comando {
+        private static final long serialVersionUID = 1L;
+
+        private final Acao desfazer;
+        private final Acao refazer;
+        private final long bytesEstimados;
+
+        private Simples(Acao desfazer, Acao refazer, long bytesEstimados) {
+            this.desfazer = desfazer;
+            this.refazer = refazer;
+            this.bytesEstimados = bytesEstimados;
+        }
+
+        @Override
+        public void desfazer() {
+            desfazer.run();
+        }
+
+        @Override
+        public void refazer() {
+            refazer.run();
+        }
+
+        @Override
+        public long bytesEstimados() {
+            return bytesEstimados;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package br.ufal.ic.p2.wepayu.models;
+
+// O que a folha de pagamento mostra de um empregado numa data, apurado com uma passada só por
+// série de lançamentos (cartões, vendas, taxas). Cada tipo preenche os campos que se aplicam a ele.
+public class Contracheque {
+    double horasNormais;
+    double horasExtras;
+    double fixo;
+    double vendas;
+    double comissao;
+    double bruto;
+    double descontos;
+    double liquido;
+
+    public double getHorasNormais() {
+        return horasNormais;
+    }
+
+    public double getHorasExtras() {
+        return horasExtras;
+    }
+
+    public double getFixo() {
+        return fixo;
+    }
+
+    public double getVendas() {
+        return vendas;
+    }
+
+    public double getComissao() {
+        return comissao;
+    }
+
+    public double getBruto() {
+        return bruto;
+    }
+
+    public double getDescontos() {
+        return descontos;
+    }
+
+    public double getLiquido() {
+        return liquido;
+    }
+}
@@ -0,0 +1,118 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+// Apoio a dinheiro em ponto fixo, sem ser um tipo de valor: converte lançamentos com até duas casas para
+// centésimos inteiros (long), para as somas por intervalo da SerieTemporal saírem exatas e sem deriva,
+// e escreve valores com duas casas sem passar pelo String.format.
+// Salário, comissão, taxas, pagamentos e os totais da folha continuam double de propósito: as linhas do
+// relatório têm frações de centavo (salario * 12 / 52, vendas * comissao) e os totais somam essas linhas
+// sem arredondar, na ordem de sempre. Somar em centavos exatos mudaria o último centavo de relatórios e de
+// totalFolha já entregues, então totais de milhões de linhas ficam com o erro da soma em double.
+public final class Dinheiro {
+    // Valor com mais de duas casas (ou fora da faixa): não tem representação exata em centésimos
+    public static final long NAO_EXATO = Long.MIN_VALUE;
+
+    // Acima disso os centavos não cabem com folga num long e a margem de erro engole o arredondamento
+    private static final double LIMITE = 1e13;
+
+    // Último locale visto por formata: separador decimal, ou 0 se os dígitos não são ASCII
+    private static volatile Simbolos simbolos = new Simbolos(null, (char) 0);
+
+    private Dinheiro() {
+    }
+
+    // Centésimos exatos de um valor com até duas casas (o que sai do parse de "12,34"), ou NAO_EXATO.
+    // Se valor é o double mais próximo de k/100, valor * 100 fica a menos de meia unidade de k.
+    public static long centesimos(double valor) {
+        if (!(Math.abs(valor) < LIMITE)) {
+            return NAO_EXATO;
+        }
+        long c = Math.round(valor * 100.0);
+        return c / 100.0 == valor ? c : NAO_EXATO;
+    }
+
+    // O double mais próximo de centesimos / 100, o mesmo que o parse do texto com duas casas daria
+    public static double deCentesimos(long centesimos) {
+        return centesimos / 100.0;
+    }
+
+    // Escreve v como o %.2f, terminando em destino[fim - 1] (precisa de 24 posições livres antes de fim);
+    // devolve a posição do primeiro caractere, ou -1 quando só o Formatter sabe decidir.
+    // O %.2f arredonda a representação decimal do double (a do Double.toString), não o valor binário.
+    // Longe da meia-unidade de centavo as duas dão o mesmo resultado; perto dela (erro do produto
+    // por 100 + meia-ulp da representação), ou para NaN, infinitos e valores enormes, devolve -1.
+    public static int duasCasas(double v, char separador, char[] destino, int fim) {
+        double magnitude = Math.abs(v);
+        if (!(magnitude < LIMITE)) {
+            return -1;
+        }
+        double escalado = magnitude * 100.0;
+        double piso = Math.floor(escalado);
+        double fracao = escalado - piso;
+        if (Math.abs(fracao - 0.5) <= 256 * Math.ulp(magnitude)) {
+            return -1;
+        }
+        long centavos = (long) piso + (fracao > 0.5 ? 1 : 0);
+
+        int p = fim;
+        destino[--p] = (char) ('0' + centavos % 10);
+        destino[--p] = (char) ('0' + centavos / 10 % 10);
+        destino[--p] = separador;
+        long inteiros = centavos / 100;
+        do {
+            destino[--p] = (char) ('0' + inteiros % 10);
+            inteiros /= 10;
+        } while (inteiros > 0);
+        if (Double.compare(v, 0.0) < 0) { // o Formatter mantém o sinal de -0.0 e de -0.001
+            destino[--p] = '-';
+        }
+        return p;
+    }
+
+    // String.format("%.2f", valor), no locale padrão
+    public static String formata(double valor) {
+        return formata(valor, false);
+    }
+
+    // String.format("%.2f", valor).replace(".", ","): como os atributos e consultas mostram dinheiro
+    public static String formataComVirgula(double valor) {
+        return formata(valor, true);
+    }
+
+    private static String formata(double valor, boolean virgula) {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        char separador = separador(locale);
+        if (separador != 0) {
+            char[] digitos = new char[24];
+            int p = duasCasas(valor, virgula && separador == '.' ? ',' : separador, digitos, digitos.length);
+            if (p >= 0) {
+                return new String(digitos, p, digitos.length - p);
+            }
+        }
+        String s = String.format(locale, "%.2f", valor);
+        return virgula ? s.replace(".", ",") : s;
+    }
+
+    private static char separador(Locale locale) {
+        Simbolos s = simbolos;
+        if (!locale.equals(s.locale)) {
+            DecimalFormatSymbols d = DecimalFormatSymbols.getInstance(locale);
+            boolean ascii = d.getZeroDigit() == '0' && d.getMinusSign() == '-';
+            s = new Simbolos(locale, ascii ? d.getDecimalSeparator() : (char) 0);
+            simbolos = s;
+        }
+        return s.separador;
+    }
+
+    private static final class Simbolos {
+        final Locale locale;
+        final char separador;
+
+        Simbolos(Locale locale, char separador) {
+            this.locale = locale;
+            this.separador = separador;
+        }
+    }
+}
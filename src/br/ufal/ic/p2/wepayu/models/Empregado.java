@@ -1,8 +1,7 @@
 package br.ufal.ic.p2.wepayu.models;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Locale;
 
 public abstract class Empregado implements Cloneable {
     protected String nome;
@@ -19,11 +18,26 @@ public abstract class Empregado implements Cloneable {
     protected boolean sindicalizado = false;
     private String idSindicato;
     protected double taxaSindical; // valor fixo periódico
-    private List<TaxaServico> taxasServico = new ArrayList<>();
+    private SerieTemporal taxasServico = new SerieTemporal();
 
     public LocalDate dataContrato;
     public LocalDate ultimoPagamento;
 
+    // Sobe a cada lançamento e alteração: invalida as avaliações guardadas abaixo.
+    // Voláteis porque o totalFolha avalia sem trava, junto com lançamentos.
+    private volatile int versao = 0;
+    private volatile ResultadoPagamento calculoTotal;  // última avaliação do pagamento (totalFolha)
+    private volatile ResultadoPagamento calculoFolha;  // última avaliação da linha da folha (rodaFolha)
+
+    // Onde as alterações são anotadas (o repositório em que o empregado está) e se já há uma anotação
+    // esperando ser drenada
+    private volatile RegistroAlteracoes alteracoes;
+    volatile boolean alteracaoAnotada;
+
+    // Sobe só quando muda um atributo (não nos lançamentos), sempre depois da escrita: invalida a projeção
+    private volatile int versaoAtributos = 0;
+    private volatile AtributosEmpregado atributos;
+
     public Empregado(String nome, String endereco, String tipo, double salario) {
         this.nome = nome;
         this.endereco = endereco;
@@ -40,24 +54,60 @@ public abstract class Empregado implements Cloneable {
         } else {
             this.idSindicato = null;
             this.taxaSindical = 0.0;
-            this.taxasServico.clear();
+            this.taxasServico = new SerieTemporal();
         }
+        atributoAlterado();
     }
 
     public void lancaTaxaServico(LocalDate data, double valor) {
         if (!sindicalizado) {
             throw new IllegalArgumentException("Empregado nao eh sindicalizado.");
         }
-        taxasServico.add(new TaxaServico(data, valor));
+        taxasServico.adiciona(data, valor);
+        alterado();
+    }
+
+    public void lancaTaxasServico(LoteLancamentos lote) {
+        if (!sindicalizado) {
+            throw new IllegalArgumentException("Empregado nao eh sindicalizado.");
+        }
+        taxasServico.adicionaTodos(lote);
+        alterado();
+    }
+
+    public void removeTaxasServico(LoteLancamentos lote) {
+        taxasServico.removeTodos(lote);
+        alterado();
+    }
+
+    public void removeTaxaServico(LocalDate data, double valor) {
+        taxasServico.remove(data, valor);
+        alterado();
     }
 
     public double getTaxasServico(LocalDate inicio, LocalDate fimExclusive) {
         if (!sindicalizado) return 0.0;
 
-        return taxasServico.stream()
-                .filter(t -> !t.getData().isBefore(inicio) && t.getData().isBefore(fimExclusive))
-                .mapToDouble(TaxaServico::getValor)
-                .sum();
+        return taxasServico.soma(inicio, fimExclusive);
+    }
+
+    // Mesma soma, pela janela da folha de período quando há uma
+    public double getTaxasServico(LocalDate inicio, LocalDate fimExclusive, JanelasEmpregado janelas) {
+        if (janelas == null) return getTaxasServico(inicio, fimExclusive);
+        if (!sindicalizado) return 0.0;
+
+        return janelas.taxas.soma(inicio, fimExclusive);
+    }
+
+    // Janelas para uma folha de período; valem enquanto as séries não mudam
+    public JanelasEmpregado janelas() {
+        SerieTemporal lancamentos = getLancamentos();
+        return new JanelasEmpregado(taxasServico.janela(), lancamentos == null ? null : lancamentos.janela());
+    }
+
+    // Cartões ou vendas, conforme o tipo; null se o tipo não tem lançamentos
+    protected SerieTemporal getLancamentos() {
+        return null;
     }
 
     public boolean recebeEmBanco() {
@@ -67,47 +117,188 @@ public abstract class Empregado implements Cloneable {
         return false;
     }
 
-    public abstract double calculaPagamento(LocalDate dataPagamento);
+    // Pagamento devido em dataPagamento (0 fora do dia de pagamento), já confirmado: avança as datas
+    public double calculaPagamento(LocalDate dataPagamento) {
+        ResultadoPagamento resultado = avaliaPagamento(dataPagamento);
+        confirmaPagamento(resultado);
+        return resultado.getPagamento();
+    }
+
+    // Valores da linha do empregado na folha de dataPagamento, já confirmados
+    public Contracheque contracheque(LocalDate dataPagamento) {
+        return contracheque(dataPagamento, null);
+    }
+
+    // Idem, somando os períodos pelas janelas da folha de período (null: busca em cada consulta)
+    public Contracheque contracheque(LocalDate dataPagamento, JanelasEmpregado janelas) {
+        ResultadoPagamento resultado = avaliaContracheque(dataPagamento, janelas);
+        confirmaPagamento(resultado);
+        return resultado.getContracheque();
+    }
+
+    // Avalia sem alterar o empregado; pedida de novo sem mudança nele nem nas datas, devolve a mesma avaliação.
+    // A versão é lida antes dos lançamentos: uma escrita no meio só sobe a versão depois, e a avaliação
+    // guardada com a versão antiga nunca mais é usada.
+    public ResultadoPagamento avaliaPagamento(LocalDate dataPagamento) {
+        int versao = this.versao;
+        LocalDate contrato = dataContrato, ultimo = ultimoPagamento;
+        ResultadoPagamento resultado = calculoTotal;
+        if (resultado == null || !resultado.valePara(dataPagamento, versao, contrato, ultimo)) {
+            resultado = apuraPagamento(new ResultadoPagamento(dataPagamento, versao, contrato, ultimo));
+            calculoTotal = resultado;
+        }
+        return resultado;
+    }
+
+    public ResultadoPagamento avaliaContracheque(LocalDate dataPagamento, JanelasEmpregado janelas) {
+        int versao = this.versao;
+        LocalDate contrato = dataContrato, ultimo = ultimoPagamento;
+        ResultadoPagamento resultado = calculoFolha;
+        if (resultado == null || !resultado.valePara(dataPagamento, versao, contrato, ultimo)) {
+            resultado = apuraContracheque(new ResultadoPagamento(dataPagamento, versao, contrato, ultimo), janelas);
+            calculoFolha = resultado;
+        }
+        return resultado;
+    }
+
+    // Passo de confirmação: aplica as datas da avaliação, que precisa ter sido feita sobre o estado atual
+    public void confirmaPagamento(ResultadoPagamento resultado) {
+        if (!resultado.valePara(resultado.data, versao, dataContrato, ultimoPagamento)) {
+            throw new IllegalStateException("Pagamento avaliado sobre dados desatualizados.");
+        }
+        dataContrato = resultado.contratoDepois;
+        ultimoPagamento = resultado.ultimoDepois;
+        alterado();
+    }
+
+    // Volta as datas de pagamento (undo da folha); as avaliações guardadas com as outras datas deixam de valer
+    public void restauraDatas(LocalDate contrato, LocalDate ultimo) {
+        dataContrato = contrato;
+        ultimoPagamento = ultimo;
+        alterado();
+    }
+
+    // Cálculo de cada tipo a partir da entrada (data e datas de contrato/último pagamento);
+    // não altera o empregado: as datas que o pagamento acerta vão na saída
+    protected abstract ResultadoPagamento apuraPagamento(ResultadoPagamento entrada);
+
+    protected abstract ResultadoPagamento apuraContracheque(ResultadoPagamento entrada, JanelasEmpregado janelas);
+
+    // Toda mudança que pode mexer no pagamento passa por aqui. A versão sobe antes de a marca ser lida:
+    // se a marca ainda estava lá, quem drena vai reler o empregado já com a versão nova.
+    protected void alterado() {
+        versao++;
+        RegistroAlteracoes r = alteracoes;
+        if (r != null && !alteracaoAnotada) {
+            alteracaoAnotada = true;
+            r.anota(this);
+        }
+    }
+
+    public void anotaAlteracoesEm(RegistroAlteracoes alteracoes) {
+        this.alteracoes = alteracoes;
+    }
+
+    private void atributoAlterado() {
+        versaoAtributos++;
+        alterado();
+    }
+
+    // Projeção dos atributos se ainda vale (mesma versão dos atributos e mesmo locale), senão null.
+    // Uma projeção montada durante uma alteração tem a versão de antes, e a alteração sobe a versão
+    // no fim: a projeção rasgada nunca é aceita.
+    public AtributosEmpregado getAtributos() {
+        AtributosEmpregado a = atributos;
+        return a != null && a.valePara(versaoAtributos, Locale.getDefault(Locale.Category.FORMAT)) ? a : null;
+    }
+
+    // Monta a projeção atual; quem a monta sob a leitura do repositório a guarda com guardaAtributos
+    public AtributosEmpregado projetaAtributos() {
+        return new AtributosEmpregado(this, versaoAtributos, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    public void guardaAtributos(AtributosEmpregado atributos) {
+        this.atributos = atributos;
+    }
+
+    // Agenda padrão do tipo ("semanal 5", "mensal $", "semanal 2 5")
+    public abstract AgendaPagamento getAgendaPagamento();
 
-    protected long diasDesdeUltimoPagamento(LocalDate dataAtual) {
-        long dias = java.time.temporal.ChronoUnit.DAYS.between(ultimoPagamento, dataAtual);
-        ultimoPagamento = dataAtual; // atualiza para o próximo pagamento
-        return dias;
+    // Início da contagem da agenda; null se ela não depende do início (semanal simples, mensal)
+    public LocalDate getPrimeiroPagamento() {
+        return getAgendaPagamento().primeiroPagamento(dataContrato);
+    }
+
+    public boolean ehDiaDePagamento(LocalDate data) {
+        return getAgendaPagamento().ehDiaDePagamento(data, getPrimeiroPagamento());
     }
 
     @Override
     public Empregado clone() {
+        Empregado copia = copiaRasa();
+        copia.taxasServico = taxasServico.copia();
+        return copia;
+    }
+
+    // A cópia não anota alterações: só o objeto que está no repositório
+    protected Empregado copiaRasa() {
         try {
             Empregado copia = (Empregado) super.clone();
-            copia.taxasServico = new ArrayList<>();
-            for (TaxaServico taxa : this.taxasServico) {
-                copia.taxasServico.add(taxa.clone());
-            }
+            copia.alteracoes = null;
+            copia.alteracaoAnotada = false;
             return copia;
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
         }
     }
 
+    // Estado do empregado em O(1), usado pelo histórico para desfazer alteraEmpregado.
+    // Compartilha as séries de lançamentos: o histórico desfaz em ordem de pilha, então quando
+    // o memento for restaurado os lançamentos posteriores a ele já terão sido desfeitos.
+    public Empregado criarMemento() {
+        return copiaRasa();
+    }
+
+    // Restaura no próprio objeto, mantendo a identidade referenciada pelos mapas e pelo histórico
+    public void restaurarMemento(Empregado memento) {
+        this.nome = memento.nome;
+        this.endereco = memento.endereco;
+        this.tipo = memento.tipo;
+        this.salario = memento.salario;
+        this.comissao = memento.comissao;
+        this.metodoPagamento = memento.metodoPagamento;
+        this.banco = memento.banco;
+        this.agencia = memento.agencia;
+        this.contaCorrente = memento.contaCorrente;
+        this.sindicalizado = memento.sindicalizado;
+        this.idSindicato = memento.idSindicato;
+        this.taxaSindical = memento.taxaSindical;
+        this.taxasServico = memento.taxasServico;
+        this.dataContrato = memento.dataContrato;
+        this.ultimoPagamento = memento.ultimoPagamento;
+        atributoAlterado(); // a versão não volta com o memento: só sobe
+    }
+
     public String getNome() { return nome; }
-    public void setNome(String nome) { this.nome = nome; }
+    public void setNome(String nome) { this.nome = nome; atributoAlterado(); }
 
     public String getEndereco() { return endereco; }
-    public void setEndereco(String endereco) { this.endereco = endereco; }
+    public void setEndereco(String endereco) { this.endereco = endereco; atributoAlterado(); }
 
     public String getTipo() { return tipo; }
-    public void setTipo(String tipo) { this.tipo = tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; atributoAlterado(); }
 
     public double getSalario() { return salario; }
-    public void setSalario(double salario) { this.salario = salario; }
+    public void setSalario(double salario) { this.salario = salario; atributoAlterado(); }
 
     public String getMetodoPagamento() { return metodoPagamento; }
-    public void setMetodoPagamento(String metodoPagamento) { this.metodoPagamento = metodoPagamento; }
+    public void setMetodoPagamento(String metodoPagamento) { this.metodoPagamento = metodoPagamento; atributoAlterado(); }
     public void setMetodoPagamentoBanco(String metodoPagamento, String banco, String agencia, String contaCorrente) {
         this.metodoPagamento = metodoPagamento;
         this.banco = banco;
         this.agencia = agencia;
         this.contaCorrente = contaCorrente;
+        atributoAlterado();
     }
 
     public String getBanco() { return banco; }
@@ -115,10 +306,11 @@ public abstract class Empregado implements Cloneable {
     public String getContaCorrente() { return contaCorrente; }
 
     public double getComissao() { return comissao; }
-    public void setComissao(double comissao) { this.comissao = comissao; }
+    public void setComissao(double comissao) { this.comissao = comissao; atributoAlterado(); }
 
     public boolean isSindicalizado() { return sindicalizado; }
     public String getIdSindicato() { return idSindicato; }
 
     public double getTaxaSindical() { return taxaSindical; }
+    public SerieTemporal getTaxasServico() { return taxasServico; }
 }
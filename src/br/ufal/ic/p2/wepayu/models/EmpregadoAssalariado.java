@@ -9,22 +9,25 @@ public class EmpregadoAssalariado extends Empregado implements Cloneable {
     }
 
     public double calculaTaxa(int ultimoDiaDoMes, LocalDate inicio, LocalDate fim) {
+        return calculaTaxa(ultimoDiaDoMes, inicio, fim, null);
+    }
+
+    private double calculaTaxa(int ultimoDiaDoMes, LocalDate inicio, LocalDate fim, JanelasEmpregado janelas) {
         if (!sindicalizado) return 0.0;
 
-        return ultimoDiaDoMes * taxaSindical + getTaxasServico(inicio, fim);
+        return ultimoDiaDoMes * taxaSindical + getTaxasServico(inicio, fim, janelas);
     }
 
     @Override
-    public double calculaPagamento(LocalDate dataPagamento) {
-        if (ultimoPagamento == null) {
-            ultimoPagamento = dataContrato.minusDays(1);
-        }
+    protected ResultadoPagamento apuraPagamento(ResultadoPagamento entrada) {
+        LocalDate dataPagamento = entrada.data;
+        LocalDate ultimo = entrada.ultimoAntes != null ? entrada.ultimoAntes : entrada.contratoAntes.minusDays(1);
 
-        LocalDate inicio = ultimoPagamento.plusDays(1);
+        LocalDate inicio = ultimo.plusDays(1);
 
         // Pagamento mensal: último dia do mês
-        if (dataPagamento.getDayOfMonth() != dataPagamento.lengthOfMonth()) {
-            return 0.0;
+        if (!ehDiaDePagamento(dataPagamento)) {
+            return entrada.com(0.0, null, entrada.contratoAntes, ultimo);
         }
 
         double pagamento = salario;
@@ -36,8 +39,24 @@ public class EmpregadoAssalariado extends Empregado implements Cloneable {
         }
 
         if (pagamento < 0) pagamento = 0;
-        ultimoPagamento = dataPagamento;
-        return pagamento;
+        return entrada.com(pagamento, null, entrada.contratoAntes, dataPagamento);
+    }
+
+    // Linha da folha: salário cheio e os descontos do mês (diferente de calculaPagamento, que desconta desde o último pagamento)
+    @Override
+    protected ResultadoPagamento apuraContracheque(ResultadoPagamento entrada, JanelasEmpregado janelas) {
+        LocalDate dataPagamento = entrada.data;
+        Contracheque c = new Contracheque();
+        c.bruto = salario;
+        c.descontos = calculaTaxa(dataPagamento.lengthOfMonth(), dataPagamento.withDayOfMonth(1),
+                dataPagamento.with(java.time.temporal.TemporalAdjusters.lastDayOfMonth()), janelas);
+        c.liquido = c.bruto - c.descontos;
+        return entrada.com(c.bruto, c, entrada.contratoAntes, entrada.ultimoAntes);
+    }
+
+    @Override
+    public AgendaPagamento getAgendaPagamento() {
+        return AgendaPagamento.MENSAL_ULTIMO;
     }
 
     @Override
@@ -1,40 +1,60 @@
 package br.ufal.ic.p2.wepayu.models;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalAdjusters;
-import java.util.ArrayList;
-import java.util.List;
 
 public class EmpregadoComissionado extends Empregado implements Cloneable {
-    private List<Venda> vendas;
+    private SerieTemporal vendas;
 
     public EmpregadoComissionado(String nome, String endereco, String tipo, double salario, double comissao) {
         super(nome, endereco, tipo, salario);
         this.comissao = comissao;
         this.dataContrato = LocalDate.of(2005, 1, 1);
-        this.vendas = new ArrayList<>();
+        this.vendas = new SerieTemporal();
     }
 
     public void lancaVenda(LocalDate data, double valor) {
-        vendas.add(new Venda(data, valor));
+        vendas.adiciona(data, valor);
+        alterado();
+    }
+
+    public void lancaVendas(LoteLancamentos lote) {
+        vendas.adicionaTodos(lote);
+        alterado();
+    }
+
+    public void removeVendas(LoteLancamentos lote) {
+        vendas.removeTodos(lote);
+        alterado();
+    }
+
+    public void removeVenda(LocalDate data, double valor) {
+        vendas.remove(data, valor);
+        alterado();
+    }
+
+    public SerieTemporal getVendas() {
+        return vendas;
     }
 
     public double getVendas(LocalDate inicio, LocalDate fimExclusive) {
-        return vendas.stream()
-                .filter(v -> !v.getData().isBefore(inicio) && v.getData().isBefore(fimExclusive))
-                .mapToDouble(Venda::getValor)
-                .sum();
+        return vendas.soma(inicio, fimExclusive);
     }
 
     public double calculaTaxa(LocalDate inicio, LocalDate fim) {
+        return calculaTaxa(inicio, fim, null);
+    }
+
+    private double calculaTaxa(LocalDate inicio, LocalDate fim, JanelasEmpregado janelas) {
         if (!sindicalizado) return 0.0;
 
-        return 14 * taxaSindical + getTaxasServico(inicio, fim);
+        return 14 * taxaSindical + getTaxasServico(inicio, fim, janelas);
     }
 
     public double getVendasPeriodo(LocalDate data) {
+        return getVendasPeriodo(data, null);
+    }
+
+    private double getVendasPeriodo(LocalDate data, JanelasEmpregado janelas) {
         LocalDate inicio;
         LocalDate fim;
 
@@ -47,23 +67,17 @@ public class EmpregadoComissionado extends Empregado implements Cloneable {
             fim = data.withDayOfMonth(data.lengthOfMonth()).plusDays(1);
         }
 
-        return getVendas(inicio, fim);
+        return janelas == null ? getVendas(inicio, fim) : janelas.lancamentos.soma(inicio, fim);
     }
 
-    public LocalDate getPrimeiroPagamento() {
-        if (dataContrato == null) return null;
-        LocalDate segundaSemanaInicio = dataContrato.plusDays(7);
-        return segundaSemanaInicio.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY));
+    @Override
+    protected SerieTemporal getLancamentos() {
+        return vendas;
     }
 
-    // Retorna true se 'data' é um dia de pagamento do comissionado
-    public boolean ehDiaDePagamento(LocalDate data) {
-        LocalDate primeiro = getPrimeiroPagamento();
-        if (primeiro == null) return false;
-        if (data.isBefore(primeiro)) return false;
-        long dias = ChronoUnit.DAYS.between(primeiro, data);
-        // pagamento a cada 14 dias a partir do primeiro pagamento
-        return dias % 14 == 0 && data.getDayOfWeek() == DayOfWeek.FRIDAY;
+    @Override
+    public AgendaPagamento getAgendaPagamento() {
+        return AgendaPagamento.SEMANAL_2_5;
     }
 
     // Retorna o inicio do periodo de vendas para o pagamento de 'data'
@@ -76,15 +90,14 @@ public class EmpregadoComissionado extends Empregado implements Cloneable {
     }
 
     @Override
-    public double calculaPagamento(LocalDate dataPagamento) {
-        if (ultimoPagamento == null) {
-            ultimoPagamento = dataContrato.minusDays(1);
-        }
+    protected ResultadoPagamento apuraPagamento(ResultadoPagamento entrada) {
+        LocalDate dataPagamento = entrada.data;
+        LocalDate ultimo = entrada.ultimoAntes != null ? entrada.ultimoAntes : entrada.contratoAntes.minusDays(1);
 
-        LocalDate inicio = ultimoPagamento.plusDays(1);
+        LocalDate inicio = ultimo.plusDays(1);
 
         if (!ehDiaDePagamento(dataPagamento)) {
-            return 0.0;
+            return entrada.com(0.0, null, entrada.contratoAntes, ultimo);
         }
 
         double salarioBase = salario * 12 / 52;
@@ -100,17 +113,33 @@ public class EmpregadoComissionado extends Empregado implements Cloneable {
         }
 
         if (pagamento < 0) pagamento = 0;
-        ultimoPagamento = dataPagamento;
-        return pagamento;
+        return entrada.com(pagamento, null, entrada.contratoAntes, dataPagamento);
+    }
+
+    // Linha da folha: vendas da quinzena e a parte fixa de duas semanas; quem aparece na folha foi pago nela
+    @Override
+    protected ResultadoPagamento apuraContracheque(ResultadoPagamento entrada, JanelasEmpregado janelas) {
+        LocalDate dataPagamento = entrada.data;
+        Contracheque c = new Contracheque();
+        c.vendas = getVendasPeriodo(dataPagamento, janelas);
+        c.comissao = c.vendas * comissao;
+        c.fixo = (salario * 12 / 52) * 2;
+        c.bruto = c.fixo + c.comissao;
+        c.descontos = calculaTaxa(dataPagamento.minusDays(6), dataPagamento.plusDays(1), janelas);
+        c.liquido = c.bruto - c.descontos;
+        return entrada.com(c.bruto, c, entrada.contratoAntes, dataPagamento);
+    }
+
+    @Override
+    public void restaurarMemento(Empregado memento) {
+        super.restaurarMemento(memento);
+        this.vendas = ((EmpregadoComissionado) memento).vendas;
     }
 
     @Override
     public EmpregadoComissionado clone() {
         EmpregadoComissionado copia = (EmpregadoComissionado) super.clone();
-        copia.vendas = new ArrayList<>();
-        for (Venda venda : this.vendas) {
-            copia.vendas.add(venda.clone());
-        }
+        copia.vendas = vendas.copia();
         return copia;
     }
 
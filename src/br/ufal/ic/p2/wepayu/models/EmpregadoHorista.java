@@ -1,11 +1,9 @@
 package br.ufal.ic.p2.wepayu.models;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
 
 public class EmpregadoHorista extends Empregado implements Cloneable{
-    private List<RegistroHoras> registros = new ArrayList<>();
+    private SerieTemporal registros = new SerieTemporal();
 
     public EmpregadoHorista(String nome, String endereco, double salario) {
         super(nome, endereco, "horista", salario);
@@ -16,72 +14,131 @@ public class EmpregadoHorista extends Empregado implements Cloneable{
         if (dataContrato == null) {
             dataContrato = data; // Define data de contrato no primeiro registro
         }
-        registros.add(new RegistroHoras(data, horas));
+        registros.adiciona(data, horas);
+        alterado();
     }
 
-    public double getHorasNormais(LocalDate inicio, LocalDate fimExclusive) {
-        double soma = 0.0;
-        for (RegistroHoras r : registros) {
-            LocalDate d = r.getData();
-            if (!d.isBefore(inicio) && d.isBefore(fimExclusive)) {
-                soma += Math.min(8.0, r.getHoras());
-            }
+    public void lancaCartoes(LoteLancamentos lote) {
+        if (dataContrato == null) {
+            dataContrato = lote.primeiraData();
         }
-        return soma;
+        registros.adicionaTodos(lote);
+        alterado();
+    }
+
+    public void removeRegistros(LoteLancamentos lote) {
+        registros.removeTodos(lote);
+        alterado();
+    }
+
+    public void removeRegistro(LocalDate data, double horas) {
+        registros.remove(data, horas);
+        alterado();
+    }
+
+    public SerieTemporal getRegistros() {
+        return registros;
+    }
+
+    public double getHorasNormais(LocalDate inicio, LocalDate fimExclusive) {
+        return registros.soma(inicio, fimExclusive, h -> Math.min(8.0, h));
     }
 
     public double getHorasExtras(LocalDate inicio, LocalDate fimExclusive) {
-        double soma = 0.0;
-        for (RegistroHoras r : registros) {
-            LocalDate d = r.getData();
-            if (!d.isBefore(inicio) && d.isBefore(fimExclusive)) {
-                double h = r.getHoras();
-                if (h > 8.0) soma += (h - 8.0);
-            }
-        }
-        return soma;
+        return registros.soma(inicio, fimExclusive, h -> h > 8.0 ? h - 8.0 : 0.0);
     }
 
     public double calculaTaxa (LocalDate inicio, LocalDate fim) {
+        return calculaTaxa(inicio, fim, null);
+    }
+
+    private double calculaTaxa(LocalDate inicio, LocalDate fim, JanelasEmpregado janelas) {
         if (!sindicalizado) return 0.0;
 
-        return taxaSindical * 7 + getTaxasServico(inicio, fim);
+        return taxaSindical * 7 + getTaxasServico(inicio, fim, janelas);
     }
 
     @Override
-    public double calculaPagamento(LocalDate dataPagamento) {
-        if (dataContrato == null) {
-            dataContrato = dataPagamento;
-        }
+    protected ResultadoPagamento apuraPagamento(ResultadoPagamento entrada) {
+        Contracheque c = apura(entrada.data, false, null);
+        return entrada.com(c.bruto, null, contratoApos(entrada), ultimoPagamentoApos(entrada));
+    }
+
+    // Linha da folha: as horas da semana saem da mesma passada que calculou o pagamento
+    @Override
+    protected ResultadoPagamento apuraContracheque(ResultadoPagamento entrada, JanelasEmpregado janelas) {
+        LocalDate dataPagamento = entrada.data;
+        Contracheque c = apura(dataPagamento, true, janelas);
+        c.descontos = (c.bruto > 0) ? calculaTaxa(dataPagamento.minusDays(6), dataPagamento.plusDays(1), janelas) : 0;
+        c.liquido = c.bruto - c.descontos;
+        return entrada.com(c.bruto, c, contratoApos(entrada), ultimoPagamentoApos(entrada));
+    }
+
+    // Quem ainda não lançou cartão passa a ter contrato na data do primeiro pagamento calculado
+    private static LocalDate contratoApos(ResultadoPagamento entrada) {
+        return entrada.contratoAntes != null ? entrada.contratoAntes : entrada.data;
+    }
 
-        if (ultimoPagamento == null) {
-            ultimoPagamento = dataContrato.minusDays(1);
+    // Último pagamento avança no dia de pagamento; sem pagamento anterior, fica na véspera do contrato
+    private LocalDate ultimoPagamentoApos(ResultadoPagamento entrada) {
+        if (ehDiaDePagamento(entrada.data)) {
+            return entrada.data;
         }
+        return entrada.ultimoAntes != null ? entrada.ultimoAntes : contratoApos(entrada).minusDays(1);
+    }
 
+    // Pagamento da semana que termina em dataPagamento
+    private Contracheque apura(LocalDate dataPagamento, boolean sempreApuraHoras, JanelasEmpregado janelas) {
+        Contracheque c = new Contracheque();
         LocalDate inicio = dataPagamento.minusDays(6);
 
         // Horistas recebem semanalmente na sexta-feira
-        if (dataPagamento.getDayOfWeek() != java.time.DayOfWeek.FRIDAY) {
-            return 0.0;
+        boolean diaDePagamento = ehDiaDePagamento(dataPagamento);
+        if (diaDePagamento || sempreApuraHoras) {
+            apuraHoras(inicio, dataPagamento.plusDays(1), c, janelas);
+        }
+        if (!diaDePagamento) {
+            return c;
         }
 
-        double horasNormais = getHorasNormais(inicio, dataPagamento.plusDays(1));
-        double horasExtras = getHorasExtras(inicio, dataPagamento.plusDays(1));
-        double pagamento = horasNormais * salario + horasExtras * (salario * 1.5);
+        double pagamento = c.horasNormais * salario + c.horasExtras * (salario * 1.5);
 
         if (pagamento < 0) pagamento = 0;
-        ultimoPagamento = dataPagamento;
-        return pagamento;
+        c.bruto = pagamento;
+        return c;
+    }
+
+    // Mesmas parcelas e mesma ordem de getHorasNormais/getHorasExtras, numa passada só pelos cartões
+    private void apuraHoras(LocalDate inicio, LocalDate fimExclusive, Contracheque c, JanelasEmpregado janelas) {
+        int de = janelas == null ? registros.posicao(inicio) : janelas.lancamentos.inicio(inicio);
+        int ate = janelas == null ? registros.posicao(fimExclusive) : janelas.lancamentos.fim(fimExclusive);
+        for (int i = de; i < ate; i++) {
+            double h = registros.valor(i);
+            c.horasNormais += Math.min(8.0, h);
+            c.horasExtras += h > 8.0 ? h - 8.0 : 0.0;
+        }
+    }
+
+    @Override
+    protected SerieTemporal getLancamentos() {
+        return registros;
+    }
+
+    @Override
+    public AgendaPagamento getAgendaPagamento() {
+        return AgendaPagamento.SEMANAL_5;
+    }
+
+    @Override
+    public void restaurarMemento(Empregado memento) {
+        super.restaurarMemento(memento);
+        this.registros = ((EmpregadoHorista) memento).registros;
     }
 
     @Override
     public EmpregadoHorista clone() {
         EmpregadoHorista copia = (EmpregadoHorista) super.clone();
-        copia.registros = new ArrayList<>();
-        for (RegistroHoras registro : this.registros) {
-            copia.registros.add(registro.clone());
-        }
-
+        copia.registros = registros.copia();
         return copia;
     }
 }
@@ -1,25 +1,25 @@
 package br.ufal.ic.p2.wepayu.models;
 
-import java.util.HashMap;
-import java.util.Map;
-
+// Versões persistentes do repositório num instante: guardar um estado é copiar ponteiros.
+// Os objetos Empregado em si continuam mutáveis; o histórico cuida deles (criarMemento).
 public class EstadoSistema {
-    public Map<String, Empregado> empregadosBackup;
-    public Map<String, Empregado> sindicatosBackup;
+    public TabelaEmpregados empregadosBackup;
+    public MapaPersistente<String, Empregado> sindicatosBackup;
     public int contadorBackup;
     public int proximoIdBackup;
 
-    public EstadoSistema(Map<String, Empregado> empregados, Map<String, Empregado> sindicatos, int contador, int proximoId) {
-        this.empregadosBackup = new HashMap<>();
-        for (Map.Entry<String, Empregado> entry : empregados.entrySet()) {
-            this.empregadosBackup.put(entry.getKey(), entry.getValue().clone());
-        }
-
-        this.sindicatosBackup = new HashMap<>();
-        for (Map.Entry<String, Empregado> entry : sindicatos.entrySet()) {
-            this.sindicatosBackup.put(entry.getKey(), entry.getValue().clone());
-        }
+    // Partições por tipo, em ordem de nome; null quando o estado não veio do repositório (ex.: arquivo) e precisa ser indexado
+    public ArvorePersistente<ChaveNome, EmpregadoHorista> horistasBackup;
+    public ArvorePersistente<ChaveNome, EmpregadoAssalariado> assalariadosBackup;
+    public ArvorePersistente<ChaveNome, EmpregadoComissionado> comissionadosBackup;
+    public MapaPersistente<GrupoPagamento, TabelaEmpregados> gruposBackup;
+    public MapaPersistente<GrupoPagamento, ArvorePersistente<ChaveNome, EmpregadoComissionado>> comissionadosPorGrupoBackup;
+    // geração do índice de substrings que cobria este estado (0: nenhuma)
+    public int geracaoIndiceNomesBackup;
 
+    public EstadoSistema(TabelaEmpregados empregados, MapaPersistente<String, Empregado> sindicatos, int contador, int proximoId) {
+        this.empregadosBackup = empregados;
+        this.sindicatosBackup = sindicatos;
         this.contadorBackup = contador;
         this.proximoIdBackup = proximoId;
     }
@@ -1,51 +1,42 @@
 package br.ufal.ic.p2.wepayu.models;
 
-import br.ufal.ic.p2.wepayu.Exception.DataMomentoInvalidaException;
-
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class FormataHoraData {
 
+    // Horas com até duas casas, sem zeros à direita ("8", "8,5", "8,25"), montadas a partir dos
+    // centésimos de hora: o mesmo texto do arredondamento para duas casas + BigDecimal de antes
     public String formatarHoras(double valor) {
-        double rounded = Math.round(valor * 100.0) / 100.0;
-        if (Math.abs(rounded - Math.round(rounded)) < 1e-9) {
-            return String.valueOf((int) Math.round(rounded));
-        } else {
-            String s = BigDecimal.valueOf(rounded).stripTrailingZeros().toPlainString();
-            return s.replace(".", ",");
+        if (!(Math.abs(valor) < 1e13)) { // fora da faixa em que os centésimos cabem num long (e NaN)
+            double rounded = Math.round(valor * 100.0) / 100.0;
+            if (Math.abs(rounded - Math.round(rounded)) < 1e-9) {
+                return String.valueOf((int) Math.round(rounded));
+            }
+            return BigDecimal.valueOf(rounded).stripTrailingZeros().toPlainString().replace(".", ",");
         }
-    }
-
-    public String normalizarData(String data, String momento) {
-        if (data == null || data.trim().isEmpty()) {
-            throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+        long centesimos = Math.round(valor * 100.0);
+        long resto = Math.abs(centesimos % 100);
+        if (resto == 0) {
+            return String.valueOf((int) (centesimos / 100));
         }
-        String[] partes = data.trim().split("/");
-        if (partes.length != 3) {
-            throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+        StringBuilder s = new StringBuilder(12);
+        if (centesimos < 0) {
+            s.append('-');
         }
-        try {
-            int dia = Integer.parseInt(partes[0]);
-            int mes = Integer.parseInt(partes[1]);
-            int ano = Integer.parseInt(partes[2]);
-            if (dia < 1 || dia > 31 || mes < 1 || mes > 12) {
-                throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
-            }
-            if (dia > 29 && mes == 2) {
-                throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
-            }
-            return String.format("%02d/%02d/%04d", dia, mes, ano);
-        } catch (NumberFormatException e) {
-            throw new DataMomentoInvalidaException("Data" + momento + "invalida.");
+        s.append(Math.abs(centesimos / 100)).append(',').append((char) ('0' + resto / 10));
+        if (resto % 10 != 0) {
+            s.append((char) ('0' + resto % 10));
         }
+        return s.toString();
     }
 
-    public LocalDate parseData(String dataStr, String momento) {
-        String dataNormalizada = normalizarData(dataStr, momento);
+    // Leitura e validação em CodecDataNumero, que faz o mesmo sem strings intermediárias
+    public String normalizarData(String data, String momento) {
+        return CodecDataNumero.formata(CodecDataNumero.leData(data, momento));
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        return LocalDate.parse(dataNormalizada, formatter);
+    public LocalDate parseData(String dataStr, String momento) {
+        return CodecDataNumero.data(dataStr, momento);
     }
 }
@@ -0,0 +1,40 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Chave dos grupos de pagamento do repositório: empregados com a mesma agenda e o mesmo primeiro
+// pagamento recebem exatamente nos mesmos dias, então a folha decide uma vez por grupo quem recebe.
+public final class GrupoPagamento {
+    private final AgendaPagamento agenda;
+    private final LocalDate primeiroPagamento; // null quando a agenda não depende do início
+
+    private GrupoPagamento(AgendaPagamento agenda, LocalDate primeiroPagamento) {
+        this.agenda = agenda;
+        this.primeiroPagamento = primeiroPagamento;
+    }
+
+    // O início só conta para agendas de várias semanas, que ficam com a data de contrato fixa
+    // (comissionados); a data de contrato dos horistas muda com os cartões, mas não entra na chave.
+    public static GrupoPagamento de(Empregado e) {
+        return new GrupoPagamento(e.getAgendaPagamento(), e.getPrimeiroPagamento());
+    }
+
+    public boolean ehDiaDePagamento(LocalDate data) {
+        return agenda.ehDiaDePagamento(data, primeiroPagamento);
+    }
+
+    public LocalDate proximoPagamento(LocalDate data) {
+        return agenda.proximoPagamento(data, primeiroPagamento);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GrupoPagamento g && agenda == g.agenda && Objects.equals(primeiroPagamento, g.primeiroPagamento);
+    }
+
+    @Override
+    public int hashCode() {
+        return agenda.hashCode() * 31 + Objects.hashCode(primeiroPagamento);
+    }
+}
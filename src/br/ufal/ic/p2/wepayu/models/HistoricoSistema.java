@@ -1,25 +1,205 @@
 package br.ufal.ic.p2.wepayu.models;
 
+import br.ufal.ic.p2.wepayu.Exception.HistoricoRefazerVazioException;
+import br.ufal.ic.p2.wepayu.Exception.HistoricoTruncadoException;
 import br.ufal.ic.p2.wepayu.Exception.HistoricoVazioException;
+import br.ufal.ic.p2.wepayu.Exception.SistemaEncerradoException;
 
-import java.util.Map;
-import java.util.Stack;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 
+// Log de comandos inversos: cada escrita guarda só o necessário para ser desfeita/refeita.
+// O histórico tem um orçamento de memória; passando dele, os comandos mais antigos vão para um arquivo
+// temporário (TransbordoHistorico) até a memória cair à metade do limite, e voltam em bloco quando o undo
+// chega neles: a profundidade do undo não depende do orçamento. Só se o disco falhar os comandos antigos
+// são descartados, e o undo que chegaria neles falha com HistoricoTruncadoException em vez de "nada a desfazer".
+// Lançamentos de threads diferentes registram ao mesmo tempo, então tudo aqui passa pelo monitor.
 public class HistoricoSistema {
-    private Stack<EstadoSistema> historico = new Stack<>();
+    public static final long LIMITE_PADRAO_BYTES = 64L * 1024 * 1024;
 
-    public void salvarEstado(Map<String, Empregado> empregados, Map<String, Empregado> sindicatos, int contador, int proximoId) {
-        historico.push(new EstadoSistema(empregados, sindicatos, contador, proximoId));
+    private final Deque<Comando> desfazer = new ArrayDeque<>();
+    private final Deque<Comando> refazer = new ArrayDeque<>();
+    private final TransbordoHistorico transbordo = new TransbordoHistorico();
+    private final long limiteBytes;
+    private long bytesRetidos = 0;
+    private long descartados = 0;
+    private boolean truncado = false; // o fundo da pilha de desfazer não é o começo da sessão
+    private boolean encerrado = false;
+    // quantos comandos de cada pilha foram registrados depois da última marca (checkpoint do diário)
+    private int desfazerAposMarca = 0;
+    private int refazerAposMarca = 0;
+
+    public HistoricoSistema() {
+        this(LIMITE_PADRAO_BYTES);
+    }
+
+    public HistoricoSistema(long limiteBytes) {
+        this.limiteBytes = limiteBytes;
     }
 
-    public EstadoSistema desfazer() {
-        if (historico.isEmpty()) {
-            throw new HistoricoVazioException();
+    // 'confirmacao' roda no mesmo monitor, logo depois do registro: quem grava o diário por ali
+    // garante que a ordem dos registros no diário é a mesma da pilha de desfazer
+    public synchronized void registrar(Comando comando, Runnable confirmacao) {
+        registrar(comando);
+        confirmacao.run();
+    }
+
+    public synchronized void registrar(Comando comando) {
+        encerrado = false;
+        desfazer.push(comando);
+        bytesRetidos += comando.bytesEstimados();
+        for (Comando c : refazer) { // um novo comando invalida o que havia para refazer
+            bytesRetidos -= c.bytesEstimados();
         }
-        return historico.pop();
+        refazer.clear();
+        desfazerAposMarca++;
+        refazerAposMarca = 0;
+        respeitaLimite();
     }
 
-    public boolean estaVazio() {
-        return historico.isEmpty();
+    public synchronized void desfazer() {
+        if (desfazer.isEmpty() && !transbordo.vazio()) {
+            recarregaDoDisco();
+        }
+        if (desfazer.isEmpty()) {
+            if (encerrado) {
+                throw new SistemaEncerradoException();
+            }
+            throw truncado ? new HistoricoTruncadoException() : new HistoricoVazioException();
+        }
+        Comando comando = desfazer.pop();
+        comando.desfazer();
+        refazer.push(comando);
+        if (desfazerAposMarca > 0) {
+            desfazerAposMarca--;
+            refazerAposMarca++;
+        }
+    }
+
+    public synchronized void refazer() {
+        if (refazer.isEmpty()) {
+            throw encerrado ? new SistemaEncerradoException() : new HistoricoRefazerVazioException();
+        }
+        Comando comando = refazer.pop();
+        comando.refazer();
+        desfazer.push(comando);
+        if (refazerAposMarca > 0) {
+            refazerAposMarca--;
+            desfazerAposMarca++;
+        }
+    }
+
+    // encerrarSistema: o estado já foi gravado, não há mais o que desfazer nesta sessão
+    public synchronized void encerrar() {
+        limpar();
+        encerrado = true;
+    }
+
+    public synchronized void limpar() {
+        desfazer.clear();
+        refazer.clear();
+        transbordo.limpa();
+        bytesRetidos = 0;
+        truncado = false;
+        marcar();
+    }
+
+    public synchronized void marcar() {
+        desfazerAposMarca = 0;
+        refazerAposMarca = 0;
+    }
+
+    // O próximo undo/redo mexe num comando registrado depois da marca?
+    public synchronized boolean proximoDesfazerAposMarca() {
+        return desfazerAposMarca > 0;
+    }
+
+    public synchronized boolean proximoRefazerAposMarca() {
+        return refazerAposMarca > 0;
+    }
+
+    public synchronized boolean estaVazio() {
+        return desfazer.isEmpty() && transbordo.vazio();
+    }
+
+    // ---------------- Métricas ----------------
+    // Em memória e no disco
+    public synchronized int getProfundidadeDesfazer() {
+        return desfazer.size() + transbordo.getComandos();
+    }
+
+    public synchronized int getComandosEmDisco() {
+        return transbordo.getComandos();
+    }
+
+    public synchronized long getBytesEmDisco() {
+        return transbordo.getBytes();
+    }
+
+    public synchronized int getProfundidadeRefazer() {
+        return refazer.size();
+    }
+
+    public synchronized long getBytesRetidos() {
+        return bytesRetidos;
+    }
+
+    public long getLimiteBytes() {
+        return limiteBytes;
+    }
+
+    public synchronized long getComandosDescartados() {
+        return descartados;
+    }
+
+    public synchronized boolean isTruncado() {
+        return truncado;
+    }
+
+    // Leva os mais antigos para o disco até a memória cair à metade do limite, de uma vez, num bloco só;
+    // mantém sempre ao menos o último comando, mesmo que sozinho ele passe do limite
+    private void respeitaLimite() {
+        if (bytesRetidos <= limiteBytes || desfazer.size() <= 1) {
+            return;
+        }
+        List<Comando> antigos = new ArrayList<>();
+        long bytes = 0;
+        for (Iterator<Comando> it = desfazer.descendingIterator();
+             bytesRetidos - bytes > limiteBytes / 2 && antigos.size() < desfazer.size() - 1; ) {
+            Comando c = it.next();
+            antigos.add(c);
+            bytes += c.bytesEstimados();
+        }
+        try {
+            transbordo.grava(antigos);
+        } catch (IOException e) {
+            // sem disco, os antigos se perdem; os blocos ainda mais antigos também, senão o undo pularia um trecho
+            descartados += antigos.size() + transbordo.getComandos();
+            transbordo.limpa();
+            truncado = true;
+        }
+        for (int i = 0; i < antigos.size(); i++) {
+            desfazer.pollLast();
+        }
+        bytesRetidos -= bytes;
+        desfazerAposMarca = Math.min(desfazerAposMarca, getProfundidadeDesfazer());
+    }
+
+    // O bloco mais recente do disco volta para a pilha; se não der para relê-lo, ele e os mais antigos se perdem
+    private void recarregaDoDisco() {
+        try {
+            for (Comando c : transbordo.le()) {
+                desfazer.push(c);
+                bytesRetidos += c.bytesEstimados();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            descartados += transbordo.getComandos();
+            transbordo.limpa();
+            truncado = true;
+        }
     }
 }
@@ -0,0 +1,36 @@
+package br.ufal.ic.p2.wepayu.models;
+
+// Conversão entre o id textual da Facade ("empN") e o número N usado internamente.
+// Só a forma gerada pelo sistema é aceita: "emp01" ou "EMP1" não existem, como antes com o mapa de Strings.
+public final class IdEmpregado {
+    public static final int NULO = -1;        // id nulo ou vazio
+    public static final int INEXISTENTE = 0;  // texto que nunca foi um id
+
+    private static final String PREFIXO = "emp";
+
+    private IdEmpregado() {
+    }
+
+    public static int interpreta(String id) {
+        if (id == null || id.isEmpty()) {
+            return NULO;
+        }
+        int n = id.length() - PREFIXO.length();
+        if (n < 1 || n > 9 || !id.startsWith(PREFIXO) || id.charAt(PREFIXO.length()) == '0') {
+            return INEXISTENTE;
+        }
+        int numero = 0;
+        for (int i = PREFIXO.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return INEXISTENTE;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        return numero;
+    }
+
+    public static String formata(int numero) {
+        return PREFIXO + numero;
+    }
+}
@@ -0,0 +1,14 @@
+package br.ufal.ic.p2.wepayu.models;
+
+// Janelas sobre as séries de um empregado durante uma folha de período (rodaFolhaPeriodo):
+// taxas de serviço e os lançamentos do tipo (cartões do horista, vendas do comissionado; null no
+// assalariado). Como as datas de pagamento só avançam, cada série é percorrida uma vez no período todo.
+public final class JanelasEmpregado {
+    final SerieTemporal.Janela taxas;
+    final SerieTemporal.Janela lancamentos;
+
+    JanelasEmpregado(SerieTemporal.Janela taxas, SerieTemporal.Janela lancamentos) {
+        this.taxas = taxas;
+        this.lancamentos = lancamentos;
+    }
+}
@@ -0,0 +1,58 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Lançamentos de um empregado que chegam juntos (lancaCartoes, lancaVendas, lancaTaxasServico), na ordem
+// em que chegaram: vão para a SerieTemporal de uma vez só, com um único deslocamento dos arrays, e saem
+// dela de uma vez no undo. Mesmos arrays paralelos da série: dia (epochDay) e valor.
+// Não muda depois de aplicado, então o histórico pode copiá-lo para o disco.
+public final class LoteLancamentos implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    int[] dias = new int[4];
+    double[] valores = new double[4];
+    int tamanho = 0;
+
+    public void adiciona(LocalDate data, double valor) {
+        if (tamanho == dias.length) {
+            dias = Arrays.copyOf(dias, tamanho * 2);
+            valores = Arrays.copyOf(valores, tamanho * 2);
+        }
+        dias[tamanho] = (int) data.toEpochDay();
+        valores[tamanho] = valor;
+        tamanho++;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    // Data do primeiro lançamento que chegou (não o mais antigo): é ela que vira a data de contrato do horista
+    public LocalDate primeiraData() {
+        return tamanho == 0 ? null : LocalDate.ofEpochDay(dias[0]);
+    }
+
+    // Posições em ordem de dia; no mesmo dia, na ordem de chegada (como adiciona um por um deixaria)
+    int[] ordem() {
+        int[] ordem = new int[tamanho];
+        boolean ordenado = true;
+        for (int i = 0; i < tamanho; i++) {
+            ordem[i] = i;
+            ordenado &= i == 0 || dias[i - 1] <= dias[i];
+        }
+        if (ordenado) {
+            return ordem;
+        }
+        long[] chaves = new long[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            chaves[i] = (long) dias[i] << 32 | i;
+        }
+        Arrays.sort(chaves);
+        for (int i = 0; i < tamanho; i++) {
+            ordem[i] = (int) chaves[i];
+        }
+        return ordem;
+    }
+}
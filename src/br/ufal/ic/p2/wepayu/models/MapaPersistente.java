@@ -0,0 +1,351 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Mapa imutável que preserva a ordem de inserção, como o LinkedHashMap que substitui.
+// As chaves ficam numa HAMT (chave -> posição) e as entradas num VetorPersistente;
+// cada alteração copia só o caminho tocado (O(log32 n)), e versões antigas continuam válidas.
+public final class MapaPersistente<K, V> {
+    private static final MapaPersistente<?, ?> VAZIO = new MapaPersistente<>(NoBitmap.VAZIO, VetorPersistente.vazio(), 0);
+
+    private final No indice;
+    private final VetorPersistente<Map.Entry<K, V>> entradas; // null = entrada removida
+    private final int tamanho;
+
+    private MapaPersistente(No indice, VetorPersistente<Map.Entry<K, V>> entradas, int tamanho) {
+        this.indice = indice;
+        this.entradas = entradas;
+        this.tamanho = tamanho;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> MapaPersistente<K, V> vazio() {
+        return (MapaPersistente<K, V>) VAZIO;
+    }
+
+    // Construção em lote (carga do arquivo de dados): ordena as chaves pelos pedaços do hash,
+    // na ordem em que a HAMT os consome, e aloca cada nó uma única vez, sem cópia de caminho.
+    // A ordem de inserção é a das listas.
+    public static <K, V> MapaPersistente<K, V> de(List<K> chaves, List<V> valores) {
+        int n = chaves.size();
+        int[] hashes = new int[n];
+        long[] ordem = new long[n];
+        VetorPersistente<Map.Entry<K, V>> entradas = VetorPersistente.vazio();
+        for (int i = 0; i < n; i++) {
+            hashes[i] = hash(chaves.get(i));
+            ordem[i] = ((long) (chaveDeOrdenacao(hashes[i]) ^ Integer.MIN_VALUE) << 32) | i;
+            entradas = entradas.adiciona(new AbstractMap.SimpleImmutableEntry<>(chaves.get(i), valores.get(i)));
+        }
+        Arrays.sort(ordem);
+
+        No indice = n == 0 ? NoBitmap.VAZIO : constroi(ordem, 0, n, 0, hashes, chaves);
+        if (indice == null) { // chave repetida: cai no caminho normal, que mantém a primeira posição
+            MapaPersistente<K, V> mapa = vazio();
+            for (int i = 0; i < n; i++) {
+                mapa = mapa.associa(chaves.get(i), valores.get(i));
+            }
+            return mapa;
+        }
+        return new MapaPersistente<>(indice, entradas, n);
+    }
+
+    // Pedaços de 5 bits do hash (nível 0 primeiro) concatenados, para que a ordenação agrupe por caminho
+    private static int chaveDeOrdenacao(int hash) {
+        int chave = 0;
+        for (int nivel = 0; nivel < 30; nivel += 5) {
+            chave = (chave << 5) | ((hash >>> nivel) & 31);
+        }
+        return (chave << 2) | (hash >>> 30);
+    }
+
+    private static No constroi(long[] ordem, int de, int ate, int nivel, int[] hashes, List<?> chaves) {
+        int grupos = 0;
+        int bitmap = 0;
+        Object[] pares = new Object[64];
+        int i = de;
+        while (i < ate) {
+            int indiceI = (int) ordem[i];
+            int pedaco = (hashes[indiceI] >>> nivel) & 31;
+            int fim = i + 1;
+            while (fim < ate && ((hashes[(int) ordem[fim]] >>> nivel) & 31) == pedaco) {
+                fim++;
+            }
+
+            if (fim - i == 1) {
+                pares[2 * grupos] = chaves.get(indiceI);
+                pares[2 * grupos + 1] = indiceI;
+            } else {
+                No filho = todosIguais(ordem, i, fim, hashes)
+                        ? constroiColisao(ordem, i, fim, hashes, chaves)
+                        : constroi(ordem, i, fim, nivel + 5, hashes, chaves);
+                if (filho == null) {
+                    return null;
+                }
+                pares[2 * grupos + 1] = filho;
+            }
+            bitmap |= 1 << pedaco;
+            grupos++;
+            i = fim;
+        }
+        return new NoBitmap(bitmap, Arrays.copyOf(pares, 2 * grupos));
+    }
+
+    private static boolean todosIguais(long[] ordem, int de, int ate, int[] hashes) {
+        int hash = hashes[(int) ordem[de]];
+        for (int i = de + 1; i < ate; i++) {
+            if (hashes[(int) ordem[i]] != hash) return false;
+        }
+        return true;
+    }
+
+    private static No constroiColisao(long[] ordem, int de, int ate, int[] hashes, List<?> chaves) {
+        Object[] pares = new Object[2 * (ate - de)];
+        for (int i = de; i < ate; i++) {
+            int indice = (int) ordem[i];
+            Object chave = chaves.get(indice);
+            for (int j = 0; j < 2 * (i - de); j += 2) {
+                if (pares[j].equals(chave)) return null;
+            }
+            pares[2 * (i - de)] = chave;
+            pares[2 * (i - de) + 1] = indice;
+        }
+        return new NoColisao(hashes[(int) ordem[de]], pares);
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean contem(Object chave) {
+        return posicao(chave) != null;
+    }
+
+    public V get(Object chave) {
+        Integer posicao = posicao(chave);
+        return posicao == null ? null : entradas.get(posicao).getValue();
+    }
+
+    public MapaPersistente<K, V> associa(K chave, V valor) {
+        Map.Entry<K, V> entrada = new AbstractMap.SimpleImmutableEntry<>(chave, valor);
+        Integer posicao = posicao(chave);
+        if (posicao != null) {
+            return new MapaPersistente<>(indice, entradas.atribui(posicao, entrada), tamanho);
+        }
+        No novoIndice = indice.associa(0, hash(chave), chave, entradas.size());
+        return new MapaPersistente<>(novoIndice, entradas.adiciona(entrada), tamanho + 1);
+    }
+
+    public MapaPersistente<K, V> remove(Object chave) {
+        Integer posicao = posicao(chave);
+        if (posicao == null) {
+            return this;
+        }
+        No novoIndice = indice.remove(0, hash(chave), chave);
+        MapaPersistente<K, V> novo = new MapaPersistente<>(novoIndice == null ? NoBitmap.VAZIO : novoIndice,
+                entradas.atribui(posicao, null), tamanho - 1);
+        return novo.compactaSePreciso();
+    }
+
+    // Entradas na ordem de inserção (inclui posições removidas como null)
+    Iterable<Map.Entry<K, V>> entradas() {
+        return entradas;
+    }
+
+    // Pares na ordem de inserção
+    public void paraCada(BiConsumer<? super K, ? super V> acao) {
+        for (Map.Entry<K, V> entrada : entradas) {
+            if (entrada != null) {
+                acao.accept(entrada.getKey(), entrada.getValue());
+            }
+        }
+    }
+
+    // Remoções deixam buracos no vetor de entradas; quando viram maioria, reconstrói (custo amortizado O(1))
+    private MapaPersistente<K, V> compactaSePreciso() {
+        if (entradas.size() <= 32 || entradas.size() <= 2 * tamanho) {
+            return this;
+        }
+        MapaPersistente<K, V> compacto = vazio();
+        for (Map.Entry<K, V> entrada : entradas) {
+            if (entrada != null) {
+                compacto = compacto.associa(entrada.getKey(), entrada.getValue());
+            }
+        }
+        return compacto;
+    }
+
+    private Integer posicao(Object chave) {
+        if (chave == null) {
+            return null;
+        }
+        return (Integer) indice.busca(0, hash(chave), chave);
+    }
+
+    private static int hash(Object chave) {
+        int h = chave.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // ---------------- Nós da HAMT ----------------
+    private interface No {
+        No associa(int nivel, int hash, Object chave, Object valor);
+
+        No remove(int nivel, int hash, Object chave); // null quando o nó fica vazio
+
+        Object busca(int nivel, int hash, Object chave);
+    }
+
+    // Pares chave/valor compactados por bitmap; chave null indica que o valor é um subnó
+    private static final class NoBitmap implements No {
+        static final NoBitmap VAZIO = new NoBitmap(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] pares;
+
+        NoBitmap(int bitmap, Object[] pares) {
+            this.bitmap = bitmap;
+            this.pares = pares;
+        }
+
+        @Override
+        public No associa(int nivel, int hash, Object chave, Object valor) {
+            int bit = 1 << ((hash >>> nivel) & 31);
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) == 0) {
+                Object[] novos = new Object[pares.length + 2];
+                System.arraycopy(pares, 0, novos, 0, i);
+                novos[i] = chave;
+                novos[i + 1] = valor;
+                System.arraycopy(pares, i, novos, i + 2, pares.length - i);
+                return new NoBitmap(bitmap | bit, novos);
+            }
+
+            Object k = pares[i];
+            Object v = pares[i + 1];
+            Object[] novos = pares.clone();
+            if (k == null) {
+                novos[i + 1] = ((No) v).associa(nivel + 5, hash, chave, valor);
+            } else if (k.equals(chave)) {
+                novos[i + 1] = valor;
+            } else {
+                novos[i] = null;
+                novos[i + 1] = criaSubno(nivel + 5, k, v, hash, chave, valor);
+            }
+            return new NoBitmap(bitmap, novos);
+        }
+
+        @Override
+        public No remove(int nivel, int hash, Object chave) {
+            int bit = 1 << ((hash >>> nivel) & 31);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = pares[i];
+            if (k == null) {
+                No filho = ((No) pares[i + 1]).remove(nivel + 5, hash, chave);
+                if (filho == pares[i + 1]) {
+                    return this;
+                }
+                if (filho != null) {
+                    Object[] novos = pares.clone();
+                    novos[i + 1] = filho;
+                    return new NoBitmap(bitmap, novos);
+                }
+            } else if (!k.equals(chave)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] novos = new Object[pares.length - 2];
+            System.arraycopy(pares, 0, novos, 0, i);
+            System.arraycopy(pares, i + 2, novos, i, pares.length - i - 2);
+            return new NoBitmap(bitmap ^ bit, novos);
+        }
+
+        @Override
+        public Object busca(int nivel, int hash, Object chave) {
+            int bit = 1 << ((hash >>> nivel) & 31);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+            Object k = pares[i];
+            if (k == null) {
+                return ((No) pares[i + 1]).busca(nivel + 5, hash, chave);
+            }
+            return k.equals(chave) ? pares[i + 1] : null;
+        }
+
+        private static No criaSubno(int nivel, Object k1, Object v1, int hash2, Object k2, Object v2) {
+            int hash1 = hash(k1);
+            if (hash1 == hash2) {
+                return new NoColisao(hash1, new Object[]{k1, v1, k2, v2});
+            }
+            return VAZIO.associa(nivel, hash1, k1, v1).associa(nivel, hash2, k2, v2);
+        }
+    }
+
+    // Chaves diferentes com o mesmo hash: lista linear de pares
+    private static final class NoColisao implements No {
+        final int hash;
+        final Object[] pares;
+
+        NoColisao(int hash, Object[] pares) {
+            this.hash = hash;
+            this.pares = pares;
+        }
+
+        @Override
+        public No associa(int nivel, int hash, Object chave, Object valor) {
+            if (hash != this.hash) {
+                No pai = new NoBitmap(1 << ((this.hash >>> nivel) & 31), new Object[]{null, this});
+                return pai.associa(nivel, hash, chave, valor);
+            }
+            int i = indiceDe(chave);
+            Object[] novos;
+            if (i >= 0) {
+                novos = pares.clone();
+            } else {
+                i = pares.length;
+                novos = Arrays.copyOf(pares, pares.length + 2);
+                novos[i] = chave;
+            }
+            novos[i + 1] = valor;
+            return new NoColisao(hash, novos);
+        }
+
+        @Override
+        public No remove(int nivel, int hash, Object chave) {
+            int i = indiceDe(chave);
+            if (i < 0) {
+                return this;
+            }
+            if (pares.length == 2) {
+                return null;
+            }
+            Object[] novos = new Object[pares.length - 2];
+            System.arraycopy(pares, 0, novos, 0, i);
+            System.arraycopy(pares, i + 2, novos, i, pares.length - i - 2);
+            return new NoColisao(hash, novos);
+        }
+
+        @Override
+        public Object busca(int nivel, int hash, Object chave) {
+            int i = indiceDe(chave);
+            return i < 0 ? null : pares[i + 1];
+        }
+
+        private int indiceDe(Object chave) {
+            for (int i = 0; i < pares.length; i += 2) {
+                if (pares[i].equals(chave)) return i;
+            }
+            return -1;
+        }
+    }
+}
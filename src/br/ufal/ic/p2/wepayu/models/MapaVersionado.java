@@ -0,0 +1,107 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Map mutável por fora, persistente por dentro: cada escrita troca a versão atual por uma nova
+// e instantaneo()/restaura() guardam e devolvem versões inteiras em O(1).
+// Iteradores percorrem a versão do momento em que foram criados.
+public class MapaVersionado<K, V> extends AbstractMap<K, V> {
+    private volatile MapaPersistente<K, V> atual;
+
+    public MapaVersionado() {
+        this.atual = MapaPersistente.vazio();
+    }
+
+    public MapaVersionado(Map<K, V> origem) {
+        this();
+        putAll(origem);
+    }
+
+    public MapaPersistente<K, V> instantaneo() {
+        return atual;
+    }
+
+    public void restaura(MapaPersistente<K, V> versao) {
+        this.atual = versao;
+    }
+
+    @Override
+    public int size() {
+        return atual.tamanho();
+    }
+
+    @Override
+    public boolean containsKey(Object chave) {
+        return atual.contem(chave);
+    }
+
+    @Override
+    public V get(Object chave) {
+        return atual.get(chave);
+    }
+
+    @Override
+    public V put(K chave, V valor) {
+        V anterior = atual.get(chave);
+        atual = atual.associa(chave, valor);
+        return anterior;
+    }
+
+    @Override
+    public V remove(Object chave) {
+        V anterior = atual.get(chave);
+        atual = atual.remove(chave);
+        return anterior;
+    }
+
+    @Override
+    public void clear() {
+        atual = MapaPersistente.vazio();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return atual.tamanho();
+            }
+
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                Iterator<Map.Entry<K, V>> entradas = atual.entradas().iterator();
+                return new Iterator<>() {
+                    private Map.Entry<K, V> proxima = avanca();
+
+                    private Map.Entry<K, V> avanca() {
+                        while (entradas.hasNext()) {
+                            Map.Entry<K, V> entrada = entradas.next();
+                            if (entrada != null) return entrada;
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return proxima != null;
+                    }
+
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        if (proxima == null) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<K, V> entrada = proxima;
+                        proxima = avanca();
+                        return entrada;
+                    }
+                };
+            }
+        };
+    }
+}
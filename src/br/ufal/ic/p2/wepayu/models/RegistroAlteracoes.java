@@ -0,0 +1,24 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+// Empregados alterados desde a última drenagem: Empregado.alterado() anota o empregado uma vez só até
+// ele ser drenado, então a fila nunca passa do número de empregados. Quem guarda valores calculados a
+// partir de muitos empregados (o total da folha por data) drena e refaz só os desses.
+public final class RegistroAlteracoes {
+    private final ConcurrentLinkedQueue<Empregado> alterados = new ConcurrentLinkedQueue<>();
+
+    void anota(Empregado e) {
+        alterados.add(e);
+    }
+
+    // A marca sai antes de o empregado ser entregue: uma alteração durante a releitura anota de novo
+    public void drena(Consumer<Empregado> acao) {
+        Empregado e;
+        while ((e = alterados.poll()) != null) {
+            e.alteracaoAnotada = false;
+            acao.accept(e);
+        }
+    }
+}
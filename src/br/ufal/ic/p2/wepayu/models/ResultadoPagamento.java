@@ -0,0 +1,57 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Resultado de avaliar o pagamento de um empregado numa data, sem mexer nele: o valor (ou a linha
+// da folha) e as datas de contrato/último pagamento que ficam valendo se o pagamento for confirmado
+// (Empregado.confirmaPagamento). Imutável depois de pronto.
+// Serve também de cache: vale para a mesma data, a mesma versão do empregado (que sobe a cada
+// lançamento ou alteração) e as mesmas datas de entrada.
+public final class ResultadoPagamento {
+    final LocalDate data;
+    final LocalDate contratoAntes, ultimoAntes;
+    final LocalDate contratoDepois, ultimoDepois;
+    final double pagamento;
+    final Contracheque contracheque;
+    private final int versao;
+
+    // Entrada de uma avaliação: por enquanto nada muda
+    ResultadoPagamento(LocalDate data, int versao, LocalDate contrato, LocalDate ultimo) {
+        this(data, versao, contrato, ultimo, contrato, ultimo, 0.0, null);
+    }
+
+    private ResultadoPagamento(LocalDate data, int versao, LocalDate contratoAntes, LocalDate ultimoAntes,
+                               LocalDate contratoDepois, LocalDate ultimoDepois, double pagamento, Contracheque contracheque) {
+        this.data = data;
+        this.versao = versao;
+        this.contratoAntes = contratoAntes;
+        this.ultimoAntes = ultimoAntes;
+        this.contratoDepois = contratoDepois;
+        this.ultimoDepois = ultimoDepois;
+        this.pagamento = pagamento;
+        this.contracheque = contracheque;
+    }
+
+    // Saída da avaliação a partir desta entrada; o contracheque não pode mais ser alterado
+    ResultadoPagamento com(double pagamento, Contracheque contracheque, LocalDate contratoDepois, LocalDate ultimoDepois) {
+        return new ResultadoPagamento(data, versao, contratoAntes, ultimoAntes, contratoDepois, ultimoDepois, pagamento, contracheque);
+    }
+
+    public LocalDate getData() {
+        return data;
+    }
+
+    public double getPagamento() {
+        return pagamento;
+    }
+
+    public Contracheque getContracheque() {
+        return contracheque;
+    }
+
+    boolean valePara(LocalDate data, int versao, LocalDate contrato, LocalDate ultimo) {
+        return this.versao == versao && this.data.equals(data)
+                && Objects.equals(contratoAntes, contrato) && Objects.equals(ultimoAntes, ultimo);
+    }
+}
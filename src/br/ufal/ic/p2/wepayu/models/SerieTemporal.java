@@ -0,0 +1,335 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+// Lançamentos (cartões, vendas, taxas de serviço) de um empregado, ordenados por dia.
+// Guarda dia (epochDay) e valor em arrays paralelos: 12 bytes por lançamento e nenhum objeto por registro.
+// Consultas por período são uma busca binária seguida de um laço sobre o trecho; em trechos longos,
+// a soma sai de um array de somas acumuladas em centésimos inteiros (prefixo[i] = valores[0] + ... +
+// valores[i-1], em centavos ou centésimos de hora): exata, sem o erro que uma soma de doubles acumula
+// em milhões de lançamentos. Uma série com algum valor de mais de duas casas soma sempre pelo laço.
+// O prefixo é criado na primeira consulta longa, estendido em O(1) nos appends e, depois de uma
+// inserção/remoção fora do fim, recalculado só a partir da posição alterada, na próxima consulta.
+// Escritas são serializadas por fora (trava do empregado), mas leituras podem correr junto com uma
+// escrita e entre si: o prefixo, que a leitura também atualiza, fica sob o monitor da série, e uma
+// leitura que pega uma escrita em andamento (versão ímpar) soma direto sem tocar nele.
+public class SerieTemporal {
+    private static final int CAPACIDADE_INICIAL = 4;
+    // até aqui o laço direto é mais barato do que manter o prefixo em dia (e soma na mesma ordem de sempre)
+    private static final int TRECHO_MAXIMO_LACO = 32;
+    private static final int[] SEM_DIAS = new int[0];
+    private static final double[] SEM_VALORES = new double[0];
+
+    private int[] dias = SEM_DIAS;
+    private double[] valores = SEM_VALORES;
+    private int tamanho = 0;
+    private long[] prefixo;
+    private int prefixoValido = 0; // prefixo[0..prefixoValido] está correto
+    private int inexatos = 0;      // valores sem representação em centésimos; guardado pelo monitor
+    private int versao = 0;        // ímpar enquanto uma escrita mexe nos arrays; guardado pelo monitor
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public int dia(int i) {
+        return dias[i];
+    }
+
+    public LocalDate data(int i) {
+        return LocalDate.ofEpochDay(dias[i]);
+    }
+
+    public double valor(int i) {
+        return valores[i];
+    }
+
+    // Primeira posição com dia >= data: [posicao(inicio), posicao(fim)) é o trecho de um período
+    public int posicao(LocalDate data) {
+        return primeiroEmOuApos((int) data.toEpochDay());
+    }
+
+    // Lançamentos do mesmo dia ficam na ordem em que chegaram; em ordem cronológica é só um append
+    public void adiciona(LocalDate data, double valor) {
+        int dia = (int) data.toEpochDay();
+        long centesimos = Dinheiro.centesimos(valor);
+        int posicao = tamanho > 0 && dias[tamanho - 1] > dia ? primeiroApos(dia) : tamanho;
+        comecaEscrita();
+        if (tamanho == dias.length) {
+            int capacidade = Math.max(CAPACIDADE_INICIAL, tamanho + (tamanho >> 1));
+            dias = Arrays.copyOf(dias, capacidade);
+            valores = Arrays.copyOf(valores, capacidade);
+        }
+        System.arraycopy(dias, posicao, dias, posicao + 1, tamanho - posicao);
+        System.arraycopy(valores, posicao, valores, posicao + 1, tamanho - posicao);
+        dias[posicao] = dia;
+        valores[posicao] = valor;
+        tamanho++;
+
+        synchronized (this) {
+            if (centesimos == Dinheiro.NAO_EXATO) {
+                inexatos++;
+            }
+            if (prefixo != null) {
+                if (prefixo.length < dias.length + 1) {
+                    prefixo = Arrays.copyOf(prefixo, dias.length + 1);
+                }
+                prefixoValido = Math.min(prefixoValido, posicao);
+                if (prefixoValido == tamanho - 1 && centesimos != Dinheiro.NAO_EXATO) {
+                    prefixo[tamanho] = prefixo[tamanho - 1] + centesimos;
+                    prefixoValido = tamanho;
+                }
+            }
+            versao++;
+        }
+    }
+
+    // O mesmo que chamar adiciona para cada lançamento do lote, na ordem dele, mas com um único
+    // deslocamento dos arrays: intercala de trás para frente o lote (ordenado) com a série, e no
+    // mesmo dia os lançamentos já existentes ficam antes dos que chegaram agora.
+    public void adicionaTodos(LoteLancamentos lote) {
+        int n = lote.tamanho;
+        if (n == 0) {
+            return;
+        }
+        int[] ordem = lote.ordem();
+        int novosInexatos = 0;
+        for (int i = 0; i < n; i++) {
+            if (Dinheiro.centesimos(lote.valores[i]) == Dinheiro.NAO_EXATO) {
+                novosInexatos++;
+            }
+        }
+        int primeiraAlterada = primeiroApos(lote.dias[ordem[0]]);
+        comecaEscrita();
+        if (tamanho + n > dias.length) {
+            int capacidade = Math.max(tamanho + n, tamanho + (tamanho >> 1));
+            dias = Arrays.copyOf(dias, capacidade);
+            valores = Arrays.copyOf(valores, capacidade);
+        }
+        int i = tamanho - 1;
+        int k = tamanho + n - 1;
+        for (int j = n - 1; j >= 0; j--) {
+            int dia = lote.dias[ordem[j]];
+            while (i >= primeiraAlterada && dias[i] > dia) {
+                dias[k] = dias[i];
+                valores[k--] = valores[i--];
+            }
+            dias[k] = dia;
+            valores[k--] = lote.valores[ordem[j]];
+        }
+        tamanho += n;
+
+        synchronized (this) {
+            inexatos += novosInexatos;
+            if (prefixo != null) {
+                if (prefixo.length < dias.length + 1) {
+                    prefixo = Arrays.copyOf(prefixo, dias.length + 1);
+                }
+                prefixoValido = Math.min(prefixoValido, primeiraAlterada);
+            }
+            versao++;
+        }
+    }
+
+    // Inverso de adicionaTodos (usado pelo undo). O lote foi o último a mexer na série, então os
+    // lançamentos dele são, em cada dia, os últimos daquele dia: sai tudo com uma compactação só.
+    public void removeTodos(LoteLancamentos lote) {
+        int n = lote.tamanho;
+        if (n == 0) {
+            return;
+        }
+        int[] ordem = lote.ordem();
+        boolean[] sai = new boolean[tamanho];
+        int primeiraAlterada = -1;
+        for (int j = 0; j < n; ) {
+            int dia = lote.dias[ordem[j]];
+            int fimDia = j;
+            while (fimDia < n && lote.dias[ordem[fimDia]] == dia) {
+                fimDia++;
+            }
+            int p = primeiroApos(dia) - (fimDia - j);
+            if (p < 0 || dias[p] != dia) {
+                throw new IllegalStateException("Lancamento inexistente.");
+            }
+            if (primeiraAlterada < 0) {
+                primeiraAlterada = p;
+            }
+            for (; j < fimDia; j++, p++) {
+                if (valores[p] != lote.valores[ordem[j]]) {
+                    throw new IllegalStateException("Lancamento inexistente.");
+                }
+                sai[p] = true;
+            }
+        }
+        comecaEscrita();
+        int k = primeiraAlterada;
+        for (int i = primeiraAlterada; i < tamanho; i++) {
+            if (!sai[i]) {
+                dias[k] = dias[i];
+                valores[k++] = valores[i];
+            }
+        }
+        tamanho = k;
+
+        synchronized (this) {
+            for (int j = 0; j < n; j++) {
+                if (Dinheiro.centesimos(lote.valores[j]) == Dinheiro.NAO_EXATO) {
+                    inexatos--;
+                }
+            }
+            prefixoValido = Math.min(prefixoValido, primeiraAlterada);
+            versao++;
+        }
+    }
+
+    // Inverso de adiciona (usado pelo undo): tira o último lançamento igual a (data, valor)
+    public void remove(LocalDate data, double valor) {
+        int dia = (int) data.toEpochDay();
+        int inicio = primeiroEmOuApos(dia);
+        for (int i = primeiroApos(dia) - 1; i >= inicio; i--) {
+            if (valores[i] == valor) {
+                comecaEscrita();
+                System.arraycopy(dias, i + 1, dias, i, tamanho - i - 1);
+                System.arraycopy(valores, i + 1, valores, i, tamanho - i - 1);
+                tamanho--;
+                synchronized (this) {
+                    if (Dinheiro.centesimos(valor) == Dinheiro.NAO_EXATO) {
+                        inexatos--;
+                    }
+                    prefixoValido = Math.min(prefixoValido, i);
+                    versao++;
+                }
+                return;
+            }
+        }
+        throw new IllegalStateException("Lancamento inexistente.");
+    }
+
+    public double soma(LocalDate inicio, LocalDate fimExclusive) {
+        int de = primeiroEmOuApos((int) inicio.toEpochDay());
+        int ate = primeiroEmOuApos((int) fimExclusive.toEpochDay());
+        if (ate - de > TRECHO_MAXIMO_LACO) {
+            synchronized (this) {
+                if ((versao & 1) == 0 && inexatos == 0) {
+                    // sem escrita em andamento os arrays estão estáveis: refaz a busca aqui dentro
+                    de = primeiroEmOuApos((int) inicio.toEpochDay());
+                    ate = primeiroEmOuApos((int) fimExclusive.toEpochDay());
+                    atualizaPrefixo(ate);
+                    return Dinheiro.deCentesimos(prefixo[ate] - prefixo[de]);
+                }
+            }
+        }
+        return somaLaco(de, ate);
+    }
+
+    public double soma(LocalDate inicio, LocalDate fimExclusive, DoubleUnaryOperator parcela) {
+        double soma = 0.0;
+        for (int i = primeiroEmOuApos((int) inicio.toEpochDay()), fim = primeiroEmOuApos((int) fimExclusive.toEpochDay()); i < fim; i++) {
+            soma += parcela.applyAsDouble(valores[i]);
+        }
+        return soma;
+    }
+
+    public SerieTemporal copia() {
+        SerieTemporal copia = new SerieTemporal();
+        copia.dias = Arrays.copyOf(dias, tamanho);
+        copia.valores = Arrays.copyOf(valores, tamanho);
+        copia.tamanho = tamanho;
+        copia.inexatos = inexatos;
+        return copia;
+    }
+
+    // Janela para consultas de períodos que só andam para a frente (folha de um período): as duas pontas
+    // avançam pelos lançamentos em vez de uma busca binária por consulta, então a série é percorrida
+    // uma vez no período todo. A primeira consulta e um período anterior ao último usam a busca binária.
+    // As somas são as de soma(inicio, fim): mesmas posições e mesmo caminho (laço ou prefixo).
+    // Só vale enquanto a série não muda: a folha roda com o repositório em modo exclusivo.
+    public Janela janela() {
+        return new Janela();
+    }
+
+    public final class Janela {
+        private int de = 0, diaDe = Integer.MIN_VALUE;
+        private int ate = 0, diaAte = Integer.MIN_VALUE;
+
+        public int inicio(LocalDate inicio) {
+            int dia = (int) inicio.toEpochDay();
+            de = dia < diaDe || diaDe == Integer.MIN_VALUE ? primeiroEmOuApos(dia) : avanca(de, dia);
+            diaDe = dia;
+            return de;
+        }
+
+        public int fim(LocalDate fimExclusive) {
+            int dia = (int) fimExclusive.toEpochDay();
+            ate = dia < diaAte || diaAte == Integer.MIN_VALUE ? primeiroEmOuApos(dia) : avanca(ate, dia);
+            diaAte = dia;
+            return ate;
+        }
+
+        public double soma(LocalDate inicio, LocalDate fimExclusive) {
+            int de = inicio(inicio);
+            int ate = fim(fimExclusive);
+            if (ate - de > TRECHO_MAXIMO_LACO) {
+                synchronized (SerieTemporal.this) {
+                    if (inexatos == 0) {
+                        atualizaPrefixo(ate);
+                        return Dinheiro.deCentesimos(prefixo[ate] - prefixo[de]);
+                    }
+                }
+            }
+            return somaLaco(de, ate);
+        }
+
+        private int avanca(int posicao, int dia) {
+            while (posicao < tamanho && dias[posicao] < dia) {
+                posicao++;
+            }
+            return posicao;
+        }
+    }
+
+    private double somaLaco(int de, int ate) {
+        double soma = 0.0;
+        for (int i = de; i < ate; i++) {
+            soma += valores[i];
+        }
+        return soma;
+    }
+
+    private synchronized void comecaEscrita() {
+        versao++;
+    }
+
+    private void atualizaPrefixo(int ate) {
+        if (prefixo == null) {
+            prefixo = new long[dias.length + 1];
+            prefixoValido = 0;
+        }
+        for (int i = prefixoValido; i < ate; i++) {
+            prefixo[i + 1] = prefixo[i] + Dinheiro.centesimos(valores[i]); // só chamado sem inexatos
+        }
+        prefixoValido = Math.max(prefixoValido, ate);
+    }
+
+    private int primeiroEmOuApos(int dia) {
+        int lo = 0, hi = tamanho;
+        while (lo < hi) {
+            int meio = (lo + hi) >>> 1;
+            if (dias[meio] < dia) lo = meio + 1;
+            else hi = meio;
+        }
+        return lo;
+    }
+
+    private int primeiroApos(int dia) {
+        int lo = 0, hi = tamanho;
+        while (lo < hi) {
+            int meio = (lo + hi) >>> 1;
+            if (dias[meio] <= dia) lo = meio + 1;
+            else hi = meio;
+        }
+        return lo;
+    }
+}
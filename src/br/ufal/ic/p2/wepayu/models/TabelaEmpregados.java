@@ -0,0 +1,120 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ObjIntConsumer;
+
+// Empregados indexados direto pelo número do id (empN -> posição N): sem hash nem chave String.
+// Imutável como o VetorPersistente por baixo, então uma versão guardada no histórico custa um ponteiro.
+// Os ids são dados em ordem crescente, então percorrer as posições é percorrer na ordem de cadastro.
+public final class TabelaEmpregados implements Iterable<Empregado> {
+    private static final TabelaEmpregados VAZIA = new TabelaEmpregados(VetorPersistente.vazio(), 0);
+
+    private final VetorPersistente<Empregado> posicoes; // posição 0 nunca é usada
+    private final int tamanho;
+
+    private TabelaEmpregados(VetorPersistente<Empregado> posicoes, int tamanho) {
+        this.posicoes = posicoes;
+        this.tamanho = tamanho;
+    }
+
+    public static TabelaEmpregados vazia() {
+        return VAZIA;
+    }
+
+    // Em lote: posicoes.get(id) é o empregado do id, null na posição 0 e nas vagas; a última posição é ocupada
+    public static TabelaEmpregados de(List<Empregado> posicoes) {
+        int tamanho = 0;
+        for (Empregado e : posicoes) {
+            if (e != null) {
+                tamanho++;
+            }
+        }
+        return tamanho == 0 ? VAZIA : new TabelaEmpregados(VetorPersistente.de(posicoes), tamanho);
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    // Todo id presente é menor que isto
+    public int limite() {
+        return posicoes.size();
+    }
+
+    public Empregado get(int id) {
+        return id > 0 && id < posicoes.size() ? posicoes.get(id) : null;
+    }
+
+    public boolean contem(int id) {
+        return get(id) != null;
+    }
+
+    public TabelaEmpregados associa(int id, Empregado empregado) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Id invalido: " + id);
+        }
+        VetorPersistente<Empregado> novas = posicoes;
+        if (id < novas.size()) {
+            return new TabelaEmpregados(novas.atribui(id, empregado), novas.get(id) == null ? tamanho + 1 : tamanho);
+        }
+        while (novas.size() < id) {
+            novas = novas.adiciona(null);
+        }
+        return new TabelaEmpregados(novas.adiciona(empregado), tamanho + 1);
+    }
+
+    public TabelaEmpregados remove(int id) {
+        if (get(id) == null) {
+            return this;
+        }
+        VetorPersistente<Empregado> novas = posicoes.atribui(id, null);
+        // vagas no fim (undo de criarEmpregado) não precisam ficar ocupando o vetor
+        while (novas.size() > 1 && novas.get(novas.size() - 1) == null) {
+            novas = novas.removeUltimo();
+        }
+        return new TabelaEmpregados(novas, tamanho - 1);
+    }
+
+    public void paraCada(ObjIntConsumer<Empregado> acao) {
+        int id = 0;
+        for (Empregado e : posicoes) {
+            if (e != null) {
+                acao.accept(e, id);
+            }
+            id++;
+        }
+    }
+
+    @Override
+    public Iterator<Empregado> iterator() {
+        Iterator<Empregado> it = posicoes.iterator();
+        return new Iterator<>() {
+            private Empregado proximo = avanca();
+
+            private Empregado avanca() {
+                while (it.hasNext()) {
+                    Empregado e = it.next();
+                    if (e != null) return e;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return proximo != null;
+            }
+
+            @Override
+            public Empregado next() {
+                if (proximo == null) {
+                    throw new NoSuchElementException();
+                }
+                Empregado e = proximo;
+                proximo = avanca();
+                return e;
+            }
+        };
+    }
+}
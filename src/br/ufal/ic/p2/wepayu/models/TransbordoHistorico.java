@@ -0,0 +1,160 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Comandos antigos do histórico fora do heap. Cada transbordo grava um bloco de comandos serializados no
+// fim de um arquivo temporário, pelo mapeamento em memória do trecho, e o bloco volta inteiro quando o
+// undo chega nele. Os blocos saem na ordem inversa da entrada (é o fundo da pilha de desfazer), então o
+// espaço do último bloco lido é reaproveitado pelo próximo.
+// O que não é serializável (empregados, séries, mementos, estados do repositório, serviços) não é copiado:
+// vai como índice numa tabela de referências que fica em memória com o bloco e volta como o mesmo objeto,
+// então o comando relido mexe nos mesmos objetos vivos que o original mexeria.
+final class TransbordoHistorico {
+    private final Deque<Bloco> blocos = new ArrayDeque<>();
+    private FileChannel canal;
+    private long fim = 0;
+    private int comandos = 0;
+
+    private static final class Bloco {
+        final long posicao;
+        final int tamanho;
+        final Object[] referencias;
+        final int comandos;
+
+        Bloco(long posicao, int tamanho, Object[] referencias, int comandos) {
+            this.posicao = posicao;
+            this.tamanho = tamanho;
+            this.referencias = referencias;
+            this.comandos = comandos;
+        }
+    }
+
+    boolean vazio() {
+        return blocos.isEmpty();
+    }
+
+    int getComandos() {
+        return comandos;
+    }
+
+    long getBytes() {
+        return fim;
+    }
+
+    // Grava os comandos, do mais antigo ao mais novo, como um bloco novo; se falhar, nada muda
+    void grava(List<Comando> lista) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Saida saida = new Saida(bytes);
+        saida.writeInt(lista.size());
+        for (Comando c : lista) {
+            saida.writeObject(c);
+        }
+        saida.close();
+        byte[] dados = bytes.toByteArray();
+
+        if (canal == null) {
+            canal = FileChannel.open(Files.createTempFile("wepayu-historico", ".tmp"),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        canal.map(FileChannel.MapMode.READ_WRITE, fim, dados.length).put(dados);
+        blocos.push(new Bloco(fim, dados.length, saida.referencias.toArray(), lista.size()));
+        fim += dados.length;
+        comandos += lista.size();
+    }
+
+    // Tira o último bloco gravado e devolve os comandos dele, do mais antigo ao mais novo.
+    // O bloco sai mesmo se a leitura falhar: o que havia nele não tem mais como voltar.
+    List<Comando> le() throws IOException, ClassNotFoundException {
+        Bloco bloco = blocos.pop();
+        fim = bloco.posicao;
+        comandos -= bloco.comandos;
+
+        byte[] dados = new byte[bloco.tamanho];
+        canal.map(FileChannel.MapMode.READ_ONLY, bloco.posicao, bloco.tamanho).get(dados);
+        try (Entrada entrada = new Entrada(new ByteArrayInputStream(dados), bloco.referencias)) {
+            int n = entrada.readInt();
+            List<Comando> lista = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                lista.add((Comando) entrada.readObject());
+            }
+            return lista;
+        }
+    }
+
+    // Descarta todos os blocos e apaga o arquivo (DELETE_ON_CLOSE)
+    void limpa() {
+        blocos.clear();
+        fim = 0;
+        comandos = 0;
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // o arquivo é temporário: se não fechou agora, some na saída do processo
+            }
+            canal = null;
+        }
+    }
+
+    private static final class Referencia implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final int indice;
+
+        Referencia(int indice) {
+            this.indice = indice;
+        }
+    }
+
+    private static final class Saida extends ObjectOutputStream {
+        final List<Object> referencias = new ArrayList<>();
+        private final Map<Object, Referencia> indices = new IdentityHashMap<>();
+
+        Saida(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof Serializable) {
+                return obj;
+            }
+            return indices.computeIfAbsent(obj, o -> {
+                referencias.add(o);
+                return new Referencia(referencias.size() - 1);
+            });
+        }
+    }
+
+    private static final class Entrada extends ObjectInputStream {
+        private final Object[] referencias;
+
+        Entrada(InputStream in, Object[] referencias) throws IOException {
+            super(in);
+            this.referencias = referencias;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            return obj instanceof Referencia r ? referencias[r.indice] : obj;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package br.ufal.ic.p2.wepayu.models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Vetor imutável com compartilhamento estrutural (trie de 32 posições + cauda).
+// adiciona/removeUltimo/atribui devolvem um novo vetor copiando só o caminho alterado,
+// então guardar uma versão antiga (snapshot) custa uma cópia de ponteiro.
+public final class VetorPersistente<T> extends AbstractList<T> {
+    private static final int BITS = 5;
+    private static final int LARGURA = 1 << BITS;
+    private static final int MASCARA = LARGURA - 1;
+    private static final Object[] NO_VAZIO = new Object[LARGURA];
+    private static final VetorPersistente<?> VAZIO = new VetorPersistente<>(0, BITS, NO_VAZIO, new Object[0]);
+
+    private final int tamanho;
+    private final int nivel;
+    private final Object[] raiz;
+    private final Object[] cauda;
+
+    private VetorPersistente(int tamanho, int nivel, Object[] raiz, Object[] cauda) {
+        this.tamanho = tamanho;
+        this.nivel = nivel;
+        this.raiz = raiz;
+        this.cauda = cauda;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> VetorPersistente<T> vazio() {
+        return (VetorPersistente<T>) VAZIO;
+    }
+
+    // Construção em lote (carga do arquivo, reconstrução de índices): cada bloco é alocado uma vez só,
+    // na mesma forma que uma sequência de adiciona produziria, sem cópia de cauda a cada elemento
+    public static <T> VetorPersistente<T> de(List<? extends T> valores) {
+        int tamanho = valores.size();
+        if (tamanho == 0) {
+            return vazio();
+        }
+        int inicioCauda = tamanho < LARGURA ? 0 : ((tamanho - 1) >>> BITS) << BITS;
+        Object[] cauda = new Object[tamanho - inicioCauda];
+        for (int i = 0; i < cauda.length; i++) {
+            cauda[i] = valores.get(inicioCauda + i);
+        }
+
+        List<Object[]> nos = new ArrayList<>(inicioCauda >>> BITS);
+        for (int i = 0; i < inicioCauda; i += LARGURA) {
+            Object[] bloco = new Object[LARGURA];
+            for (int j = 0; j < LARGURA; j++) {
+                bloco[j] = valores.get(i + j);
+            }
+            nos.add(bloco);
+        }
+        int nivel = BITS;
+        while (nos.size() > LARGURA) { // a raiz só tem LARGURA filhos: sobe um nível
+            List<Object[]> pais = new ArrayList<>((nos.size() + MASCARA) >>> BITS);
+            for (int i = 0; i < nos.size(); i += LARGURA) {
+                Object[] pai = new Object[LARGURA];
+                for (int j = 0; j < LARGURA && i + j < nos.size(); j++) {
+                    pai[j] = nos.get(i + j);
+                }
+                pais.add(pai);
+            }
+            nos = pais;
+            nivel += BITS;
+        }
+        Object[] raiz = nos.isEmpty() ? NO_VAZIO : nos.toArray(new Object[LARGURA]);
+        return new VetorPersistente<>(tamanho, nivel, raiz, cauda);
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException(indice);
+        }
+        return (T) blocoDe(indice)[indice & MASCARA];
+    }
+
+    public VetorPersistente<T> adiciona(T valor) {
+        if (tamanho - inicioCauda() < LARGURA) {
+            Object[] novaCauda = Arrays.copyOf(cauda, cauda.length + 1);
+            novaCauda[cauda.length] = valor;
+            return new VetorPersistente<>(tamanho + 1, nivel, raiz, novaCauda);
+        }
+
+        // cauda cheia: ela desce para a árvore e uma nova cauda começa
+        Object[] novaRaiz;
+        int novoNivel = nivel;
+        if ((tamanho >>> BITS) > (1 << nivel)) {
+            novaRaiz = new Object[LARGURA];
+            novaRaiz[0] = raiz;
+            novaRaiz[1] = novoCaminho(nivel, cauda);
+            novoNivel += BITS;
+        } else {
+            novaRaiz = empurraCauda(nivel, raiz, cauda);
+        }
+        return new VetorPersistente<>(tamanho + 1, novoNivel, novaRaiz, new Object[]{valor});
+    }
+
+    public VetorPersistente<T> removeUltimo() {
+        if (tamanho == 0) {
+            throw new IllegalStateException("Vetor vazio.");
+        }
+        if (tamanho == 1) {
+            return vazio();
+        }
+        if (tamanho - inicioCauda() > 1) {
+            return new VetorPersistente<>(tamanho - 1, nivel, raiz, Arrays.copyOf(cauda, cauda.length - 1));
+        }
+
+        // a cauda esvaziou: o último bloco da árvore vira a nova cauda
+        Object[] novaCauda = blocoDe(tamanho - 2);
+        Object[] novaRaiz = retiraCauda(nivel, raiz);
+        int novoNivel = nivel;
+        if (novaRaiz == null) {
+            novaRaiz = NO_VAZIO;
+        }
+        if (nivel > BITS && novaRaiz[1] == null) {
+            novaRaiz = (Object[]) novaRaiz[0];
+            novoNivel -= BITS;
+        }
+        return new VetorPersistente<>(tamanho - 1, novoNivel, novaRaiz, novaCauda);
+    }
+
+    public VetorPersistente<T> atribui(int indice, T valor) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException(indice);
+        }
+        if (indice >= inicioCauda()) {
+            Object[] novaCauda = cauda.clone();
+            novaCauda[indice & MASCARA] = valor;
+            return new VetorPersistente<>(tamanho, nivel, raiz, novaCauda);
+        }
+        return new VetorPersistente<>(tamanho, nivel, atribui(nivel, raiz, indice, valor), cauda);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int indice = 0;
+            private Object[] bloco = tamanho > 0 ? blocoDe(0) : null;
+
+            @Override
+            public boolean hasNext() {
+                return indice < tamanho;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (indice >= tamanho) {
+                    throw new NoSuchElementException();
+                }
+                if ((indice & MASCARA) == 0 && indice > 0) {
+                    bloco = blocoDe(indice);
+                }
+                return (T) bloco[indice++ & MASCARA];
+            }
+        };
+    }
+
+    private int inicioCauda() {
+        return tamanho < LARGURA ? 0 : ((tamanho - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] blocoDe(int indice) {
+        if (indice >= inicioCauda()) {
+            return cauda;
+        }
+        Object[] no = raiz;
+        for (int n = nivel; n > 0; n -= BITS) {
+            no = (Object[]) no[(indice >>> n) & MASCARA];
+        }
+        return no;
+    }
+
+    private Object[] empurraCauda(int n, Object[] pai, Object[] bloco) {
+        int sub = ((tamanho - 1) >>> n) & MASCARA;
+        Object[] copia = pai.clone();
+        Object[] inserido;
+        if (n == BITS) {
+            inserido = bloco;
+        } else {
+            Object[] filho = (Object[]) pai[sub];
+            inserido = filho != null ? empurraCauda(n - BITS, filho, bloco) : novoCaminho(n - BITS, bloco);
+        }
+        copia[sub] = inserido;
+        return copia;
+    }
+
+    private static Object[] novoCaminho(int n, Object[] bloco) {
+        if (n == 0) {
+            return bloco;
+        }
+        Object[] no = new Object[LARGURA];
+        no[0] = novoCaminho(n - BITS, bloco);
+        return no;
+    }
+
+    private Object[] retiraCauda(int n, Object[] no) {
+        int sub = ((tamanho - 2) >>> n) & MASCARA;
+        if (n > BITS) {
+            Object[] filho = retiraCauda(n - BITS, (Object[]) no[sub]);
+            if (filho == null && sub == 0) {
+                return null;
+            }
+            Object[] copia = no.clone();
+            copia[sub] = filho;
+            return copia;
+        }
+        if (sub == 0) {
+            return null;
+        }
+        Object[] copia = no.clone();
+        copia[sub] = null;
+        return copia;
+    }
+
+    private static Object[] atribui(int n, Object[] no, int indice, Object valor) {
+        Object[] copia = no.clone();
+        if (n == 0) {
+            copia[indice & MASCARA] = valor;
+        } else {
+            int sub = (indice >>> n) & MASCARA;
+            copia[sub] = atribui(n - BITS, (Object[]) no[sub], indice, valor);
+        }
+        return copia;
+    }
+}
@@ -0,0 +1,419 @@
+package br.ufal.ic.p2.wepayu.repository;
+
+import br.ufal.ic.p2.wepayu.Exception.ErroGeracaoArquivoException;
+import br.ufal.ic.p2.wepayu.Exception.ErroLeituraArquivoException;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Diário (write-ahead log) das operações da Facade aceitas desde o último snapshot.
+// Os registros se acumulam em memória e vão para o disco em grupo, com um único force() por grupo.
+// Quem registra chama aguardarDuravel() depois de soltar as travas do sistema e só volta quando o grupo
+// do seu registro passou pelo force(). Uma descarga por vez: quem chega durante o force() de outra espera
+// por ela e depois leva num grupo só tudo o que se acumulou no meio. Sem ninguém esperando, o grupo
+// desce sozinho assim que passa de limiteGrupoBytes ou, no máximo, latenciaMillis depois do primeiro
+// registro pendente. Uma descarga que falha deixa o diário recusando registros até o próximo checkpoint.
+// Formato: cabeçalho MAGICO, depois [tamanho][crc32][sequência, operação, argumentos] por registro.
+// Aberto, o arquivo fica com uma trava exclusiva: duas instâncias (no mesmo processo ou não) com o mesmo
+// diário gravariam uma por cima da outra, então a segunda falha ao abrir.
+public class DiarioRepository {
+    public static final Path ARQUIVO_PADRAO = Path.of("wepayu.journal");
+    public static final long LATENCIA_PADRAO_MILLIS = 5;
+    public static final int LIMITE_GRUPO_PADRAO_BYTES = 64 * 1024;
+    public static final int REGISTROS_POR_CHECKPOINT_PADRAO = 10_000;
+
+    private static final int MAGICO = 0x57504A31; // "WPJ1"
+    private static final int CABECALHO = Integer.BYTES;
+
+    public enum Operacao {
+        ZERAR_SISTEMA, CRIAR_EMPREGADO, REMOVER_EMPREGADO, LANCA_CARTAO, LANCA_VENDA, LANCA_TAXA_SERVICO,
+        ALTERA_EMPREGADO, RODA_FOLHA, UNDO, REDO,
+        RODA_FOLHA_PERIODO, LANCA_CARTOES, LANCA_VENDAS, LANCA_TAXAS_SERVICO // novas operações só no fim: o diário grava o ordinal
+    }
+
+    public static final class Registro {
+        private final long sequencia;
+        private final Operacao operacao;
+        private final String[] argumentos;
+        private int tamanhoCorpo;
+
+        Registro(long sequencia, Operacao operacao, String[] argumentos) {
+            this.sequencia = sequencia;
+            this.operacao = operacao;
+            this.argumentos = argumentos;
+        }
+
+        public long getSequencia() {
+            return sequencia;
+        }
+
+        public Operacao getOperacao() {
+            return operacao;
+        }
+
+        public String[] getArgumentos() {
+            return argumentos;
+        }
+    }
+
+    private final Path arquivo;
+    private final long latenciaMillis;
+    private final int limiteGrupoBytes;
+    private final int registrosPorCheckpoint;
+
+    private FileChannel canal;
+    private FileLock trava;
+    private ScheduledExecutorService descarregador;
+    private final ByteArrayOutputStream pendente = new ByteArrayOutputStream();
+    private final DataOutputStream pendenteOut = new DataOutputStream(pendente);
+    private long sequencia = 0;
+    private long ultimaPendente = 0;    // sequência do último registro em 'pendente'
+    private long sequenciaDuravel = 0;  // todo registro até aqui já passou por force() (ou pelo snapshot)
+    private boolean descarregando = false;
+    private int registrosDesdeCheckpoint = 0;
+    private boolean descargaAgendada = false;
+    private boolean descargaImediata = false;
+    private IOException falhaDescarga;
+    // último registro de cada thread: o que aguardarDuravel() espera
+    private final ThreadLocal<long[]> registradoPelaThread = ThreadLocal.withInitial(() -> new long[1]);
+
+    public DiarioRepository(Path arquivo) {
+        this(arquivo, LATENCIA_PADRAO_MILLIS, LIMITE_GRUPO_PADRAO_BYTES, REGISTROS_POR_CHECKPOINT_PADRAO);
+    }
+
+    public DiarioRepository(Path arquivo, long latenciaMillis, int limiteGrupoBytes, int registrosPorCheckpoint) {
+        this.arquivo = arquivo;
+        this.latenciaMillis = latenciaMillis;
+        this.limiteGrupoBytes = limiteGrupoBytes;
+        this.registrosPorCheckpoint = registrosPorCheckpoint;
+    }
+
+    // ---------------- Recuperação ----------------
+    // Reaplica os registros posteriores ao snapshot e deixa o diário pronto para novas escritas.
+    // Um registro incompleto ou corrompido no fim (queda no meio de uma escrita) é descartado.
+    public void abrir(long sequenciaSnapshot, Consumer<Registro> aplicador) {
+        sequencia = sequenciaSnapshot;
+        registrosDesdeCheckpoint = 0; // reaberto depois de fechar(): nada pendente nem agendado
+        descargaAgendada = false;
+        descargaImediata = false;
+        falhaDescarga = null;
+        long fimValido = CABECALHO;
+        try {
+            Path diretorio = arquivo.toAbsolutePath().getParent();
+            if (diretorio != null) {
+                Files.createDirectories(diretorio);
+            }
+            canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            trava();
+            if (canal.size() < CABECALHO) {
+                canal.truncate(0);
+                canal.write(ByteBuffer.allocate(CABECALHO).putInt(0, MAGICO), 0);
+                canal.force(true);
+            } else {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(canal.position(0)), 1 << 16));
+                if (in.readInt() != MAGICO) {
+                    throw new ErroLeituraArquivoException("Arquivo de diario invalido: " + arquivo);
+                }
+                Registro registro;
+                while ((registro = leRegistro(in)) != null) {
+                    fimValido += Integer.BYTES * 2 + registro.tamanhoCorpo;
+                    if (registro.sequencia > sequencia) {
+                        aplicador.accept(registro);
+                        sequencia = registro.sequencia;
+                        registrosDesdeCheckpoint++;
+                    }
+                }
+                canal.truncate(fimValido);
+            }
+            canal.position(canal.size());
+        } catch (IOException e) {
+            throw new ErroLeituraArquivoException("Erro ao ler arquivo de diario: " + arquivo);
+        }
+        ultimaPendente = sequencia;
+        sequenciaDuravel = sequencia;
+        descarregador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wepayu-diario");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private void trava() throws IOException {
+        try {
+            trava = canal.tryLock();
+        } catch (OverlappingFileLockException e) {
+            trava = null; // já travado por outra instância neste processo
+        }
+        if (trava == null) {
+            canal.close();
+            canal = null;
+            throw new ErroLeituraArquivoException("Arquivo de diario em uso por outra instancia: " + arquivo);
+        }
+    }
+
+    // Grava o que estiver pendente e solta o arquivo; depois daqui só abrir de novo
+    public void fechar() {
+        try {
+            sincronizar();
+        } finally {
+            fechaCanal();
+        }
+    }
+
+    private synchronized void fechaCanal() {
+        if (canal == null) {
+            return;
+        }
+        descarregador.shutdown(); // sem interromper: um write interrompido fecharia o canal no meio
+        try {
+            while (descarregando) {
+                aguardaDescarga();
+            }
+            canal.close(); // solta a trava junto
+        } catch (IOException ignorada) {
+            // o que importava (a descarga) já foi tratado em fechar()
+        } finally {
+            canal = null;
+            trava = null;
+        }
+    }
+
+    private static Registro leRegistro(DataInputStream in) throws IOException {
+        byte[] corpo;
+        int crc;
+        try {
+            int tamanho = in.readInt();
+            crc = in.readInt();
+            if (tamanho <= 0 || tamanho > (1 << 24)) {
+                return null;
+            }
+            corpo = in.readNBytes(tamanho);
+            if (corpo.length < tamanho) {
+                return null;
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc32 = new CRC32();
+        crc32.update(corpo);
+        if ((int) crc32.getValue() != crc) {
+            return null;
+        }
+
+        ByteBuffer b = ByteBuffer.wrap(corpo);
+        long sequencia = b.getLong();
+        Operacao operacao = Operacao.values()[b.get()];
+        String[] argumentos = new String[b.get()];
+        for (int i = 0; i < argumentos.length; i++) {
+            int n = b.getInt();
+            if (n >= 0) {
+                argumentos[i] = new String(corpo, b.position(), n, StandardCharsets.UTF_8);
+                b.position(b.position() + n);
+            }
+        }
+        Registro registro = new Registro(sequencia, operacao, argumentos);
+        registro.tamanhoCorpo = corpo.length;
+        return registro;
+    }
+
+    // ---------------- Escrita ----------------
+    public synchronized void registrar(Operacao operacao, String... argumentos) {
+        lancaFalhaPendente();
+        try {
+            byte[] corpo = codifica(++sequencia, operacao, argumentos);
+            CRC32 crc32 = new CRC32();
+            crc32.update(corpo);
+            pendenteOut.writeInt(corpo.length);
+            pendenteOut.writeInt((int) crc32.getValue());
+            pendenteOut.write(corpo);
+        } catch (IOException e) {
+            throw new ErroGeracaoArquivoException("Erro ao gravar arquivo de diario: " + arquivo);
+        }
+        ultimaPendente = sequencia;
+        registradoPelaThread.get()[0] = sequencia;
+        registrosDesdeCheckpoint++;
+
+        if (pendente.size() >= limiteGrupoBytes) {
+            if (!descargaImediata) { // grupo cheio: desce já, sem esperar a latência
+                descargaImediata = true;
+                descarregador.execute(() -> {
+                    synchronized (this) {
+                        descargaImediata = false;
+                    }
+                    descargaDeFundo();
+                });
+            }
+        } else if (!descargaAgendada) {
+            descargaAgendada = true;
+            descarregador.schedule(() -> {
+                synchronized (this) {
+                    descargaAgendada = false;
+                }
+                descargaDeFundo();
+            }, latenciaMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static byte[] codifica(long sequencia, Operacao operacao, String[] argumentos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(sequencia);
+        out.writeByte(operacao.ordinal());
+        out.writeByte(argumentos.length);
+        for (String argumento : argumentos) {
+            if (argumento == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] utf8 = argumento.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private void descargaDeFundo() {
+        try {
+            descarregaAte(ultimaPendente());
+        } catch (IOException e) {
+            // já ficou em falhaDescarga: quem espera ou registra depois recebe o erro
+        }
+    }
+
+    // Volta quando o último registro desta thread está no disco; é aqui que quem registra paga o force()
+    public void aguardarDuravel() {
+        try {
+            descarregaAte(registradoPelaThread.get()[0]);
+        } catch (IOException e) {
+            throw new ErroGeracaoArquivoException("Erro ao gravar arquivo de diario: " + arquivo);
+        }
+    }
+
+    // Grava tudo o que já foi registrado, de qualquer thread, e força para o disco
+    public void sincronizar() {
+        try {
+            descarregaAte(getSequencia());
+        } catch (IOException e) {
+            throw new ErroGeracaoArquivoException("Erro ao gravar arquivo de diario: " + arquivo);
+        }
+    }
+
+    // Uma descarga por vez, com o write e o force() fora do monitor: enquanto o grupo desce, as outras
+    // threads continuam registrando no próximo.
+    private void descarregaAte(long ate) throws IOException {
+        byte[] grupo;
+        long ultima;
+        synchronized (this) {
+            while (true) {
+                if (sequenciaDuravel >= ate || canal == null) {
+                    return;
+                }
+                if (falhaDescarga != null) {
+                    throw falhaDescarga;
+                }
+                if (!descarregando) {
+                    break;
+                }
+                aguardaDescarga();
+            }
+            descarregando = true;
+            grupo = pendente.toByteArray();
+            pendente.reset();
+            ultima = ultimaPendente;
+        }
+        IOException falha = null;
+        try {
+            ByteBuffer b = ByteBuffer.wrap(grupo);
+            while (b.hasRemaining()) {
+                canal.write(b);
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            falha = e;
+        }
+        synchronized (this) {
+            descarregando = false;
+            if (falha == null) {
+                sequenciaDuravel = Math.max(sequenciaDuravel, ultima);
+            } else {
+                falhaDescarga = falha;
+            }
+            notifyAll();
+        }
+        if (falha != null) {
+            throw falha;
+        }
+    }
+
+    private void aguardaDescarga() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido esperando o diario: " + arquivo);
+        }
+    }
+
+    private synchronized long ultimaPendente() {
+        return ultimaPendente;
+    }
+
+    private void lancaFalhaPendente() {
+        if (falhaDescarga != null) {
+            throw new ErroGeracaoArquivoException("Erro ao gravar arquivo de diario: " + arquivo);
+        }
+    }
+
+    // ---------------- Checkpoint ----------------
+    // Chamado depois que um snapshot com getSequencia() foi gravado: o diário volta a ter só o cabeçalho.
+    // O que estava pendente (ou num grupo que falhou) já está no snapshot, então conta como durável.
+    public synchronized void truncar() {
+        try {
+            while (descarregando) {
+                aguardaDescarga();
+            }
+            pendente.reset();
+            canal.truncate(CABECALHO);
+            canal.position(CABECALHO);
+            canal.force(true);
+        } catch (IOException e) {
+            throw new ErroGeracaoArquivoException("Erro ao gravar arquivo de diario: " + arquivo);
+        }
+        ultimaPendente = sequencia;
+        sequenciaDuravel = sequencia;
+        falhaDescarga = null;
+        registrosDesdeCheckpoint = 0;
+        notifyAll();
+    }
+
+    public synchronized boolean precisaCheckpoint() {
+        return registrosDesdeCheckpoint >= registrosPorCheckpoint;
+    }
+
+    public synchronized long getSequencia() {
+        return sequencia;
+    }
+
+    public synchronized int getRegistrosDesdeCheckpoint() {
+        return registrosDesdeCheckpoint;
+    }
+}
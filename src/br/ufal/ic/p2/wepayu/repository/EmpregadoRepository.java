@@ -1,30 +1,181 @@
 package br.ufal.ic.p2.wepayu.repository;
 
-import br.ufal.ic.p2.wepayu.models.Empregado;
+import br.ufal.ic.p2.wepayu.models.*;
 
+import java.text.Collator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
+// Seguro para várias threads: mudanças de estrutura (criar, remover, alterar, zerar, undo, folha) são
+// exclusivas; lançamentos em empregados diferentes correm em paralelo, cada um com a trava da faixa do
+// empregado; leituras de lançamentos são otimistas e não esperam por ninguém, a não ser que o mesmo
+// empregado seja alterado no meio da leitura. As estruturas persistentes são trocadas por referência
+// volátil, então quem lê sem trava vê sempre uma versão inteira.
 public class EmpregadoRepository {
-    private Map<String, Empregado> empregados = new LinkedHashMap<>();
-    private Map<String, Empregado> sindicatos = new LinkedHashMap<>();
-    private int contador = 1;
-    private int proximoId = 0;
+    private static final int FAIXAS = 64; // potência de 2
 
-    public Map<String, Empregado> getEmpregados() {
+    // Indexados pelo número do id (empN -> N); o texto "empN" só existe na Facade
+    private volatile TabelaEmpregados empregados = TabelaEmpregados.vazia();
+    private final MapaVersionado<String, Empregado> sindicatos = new MapaVersionado<>();
+    private final AtomicInteger contador = new AtomicInteger(1);
+    private volatile int proximoId = 0;
+
+    private final ReentrantReadWriteLock estrutura = new ReentrantReadWriteLock();
+    private final StampedLock[] faixas = new StampedLock[FAIXAS];
+
+    // Partições por tipo, mantidas junto com o mapa de empregados e já na ordem da folha
+    // (colação pt-BR do nome sem espaços nas pontas, empates pela ordem de cadastro)
+    private final Collator collator = Collator.getInstance(new Locale("pt", "BR"));
+    private volatile ArvorePersistente<ChaveNome, EmpregadoHorista> horistas = ArvorePersistente.vazia();
+    private volatile ArvorePersistente<ChaveNome, EmpregadoAssalariado> assalariados = ArvorePersistente.vazia();
+    private volatile ArvorePersistente<ChaveNome, EmpregadoComissionado> comissionados = ArvorePersistente.vazia();
+
+    // Grupos de pagamento (mesma agenda e mesmo início), cada um com seus membros em ordem de cadastro:
+    // a folha de uma data só percorre os grupos que recebem nela
+    private volatile MapaPersistente<GrupoPagamento, TabelaEmpregados> grupos = MapaPersistente.vazio();
+    // Os comissionados de cada grupo também em ordem de nome: é a seção da folha que depende da agenda
+    private volatile MapaPersistente<GrupoPagamento, ArvorePersistente<ChaveNome, EmpregadoComissionado>> comissionadosPorGrupo =
+            MapaPersistente.vazio();
+
+    // Todo empregado que entra no repositório anota aqui as suas alterações (Empregado.alterado)
+    private final RegistroAlteracoes alteracoes = new RegistroAlteracoes();
+
+    {
+        collator.setStrength(Collator.PRIMARY);
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas[i] = new StampedLock();
+        }
+    }
+
+    // Busca por trecho do nome (getEmpregadoPorNome). Reconstruído quando o lixo passa do dobro do que havia
+    // na última reconstrução, ou quando um estado de outra geração é restaurado.
+    private static final long POSTAGENS_MINIMAS_RECONSTRUCAO = 4096;
+    private final IndiceTrigramas indiceNomes = new IndiceTrigramas();
+    private int geracaoIndiceNomes = 1;
+    private boolean indiceNomesValido = true;
+    private long postagensNaReconstrucao = 0;
+
+    // Somente leitura, em ordem de cadastro: escritas passam por addEmpregado/removeEmpregado para manter as partições em dia
+    public TabelaEmpregados getEmpregados() {
         return empregados;
     }
 
+    public int getNumeroDeEmpregados() {
+        return empregados.tamanho();
+    }
+
+    public Iterable<EmpregadoHorista> getHoristasPorNome() {
+        return horistas;
+    }
+
+    public Iterable<EmpregadoAssalariado> getAssalariadosPorNome() {
+        return assalariados;
+    }
+
+    public Iterable<EmpregadoComissionado> getComissionadosPorNome() {
+        return comissionados;
+    }
+
+    public RegistroAlteracoes getAlteracoes() {
+        return alteracoes;
+    }
+
+    // Persistente: a referência muda sempre que algum grupo ganha ou perde membros, então quem guarda
+    // algo calculado por grupo compara a referência guardada com a atual para saber se ainda vale
+    public MapaPersistente<GrupoPagamento, TabelaEmpregados> getGrupos() {
+        return grupos;
+    }
+
+    // Empregados que a agenda manda pagar em 'data', em ordem de cadastro. Só os grupos com pagamento
+    // na data são percorridos; quando são vários, os ids deles são intercalados.
+    public List<Empregado> getEmpregadosComPagamentoEm(LocalDate data) {
+        TabelaEmpregados empregados = this.empregados;
+        List<TabelaEmpregados> devidos = new ArrayList<>();
+        grupos.paraCada((grupo, membros) -> {
+            if (grupo.ehDiaDePagamento(data)) {
+                devidos.add(membros);
+            }
+        });
+        if (devidos.size() == 1) {
+            List<Empregado> lista = new ArrayList<>(devidos.get(0).tamanho());
+            devidos.get(0).forEach(lista::add);
+            return lista;
+        }
+        int total = 0;
+        for (TabelaEmpregados membros : devidos) {
+            total += membros.tamanho();
+        }
+        int[] ids = new int[total];
+        int[] n = {0};
+        for (TabelaEmpregados membros : devidos) {
+            membros.paraCada((e, id) -> ids[n[0]++] = id);
+        }
+        Arrays.sort(ids);
+        List<Empregado> lista = new ArrayList<>(total);
+        for (int id : ids) {
+            lista.add(empregados.get(id));
+        }
+        return lista;
+    }
+
+    // Comissionados que recebem em 'data', na ordem da folha: só as árvores dos grupos do dia são lidas.
+    // Quando mais de um grupo recebe, os menores são intercalados na árvore do maior pelas chaves de nome.
+    public List<EmpregadoComissionado> getComissionadosComPagamentoEm(LocalDate data) {
+        List<ArvorePersistente<ChaveNome, EmpregadoComissionado>> devidos = new ArrayList<>();
+        comissionadosPorGrupo.paraCada((grupo, membros) -> {
+            if (grupo.ehDiaDePagamento(data)) {
+                devidos.add(membros);
+            }
+        });
+        if (devidos.isEmpty()) {
+            return List.of();
+        }
+        devidos.sort((a, b) -> Integer.compare(b.tamanho(), a.tamanho()));
+        ArvorePersistente<ChaveNome, EmpregadoComissionado> todos = devidos.get(0);
+        for (int i = 1; i < devidos.size(); i++) {
+            todos = todos.insereTodas(devidos.get(i));
+        }
+        List<EmpregadoComissionado> lista = new ArrayList<>(todos.tamanho());
+        todos.forEach(lista::add);
+        return lista;
+    }
+
+    // Primeiro dia, em ou depois de 'data', em que algum grupo recebe; null se nenhum grupo tem agenda definida
+    public LocalDate proximoPagamento(LocalDate data) {
+        LocalDate[] proximo = {null};
+        grupos.paraCada((grupo, membros) -> {
+            LocalDate d = grupo.proximoPagamento(data);
+            if (d != null && (proximo[0] == null || d.isBefore(proximo[0]))) {
+                proximo[0] = d;
+            }
+        });
+        return proximo[0];
+    }
+
     public Map<String, Empregado> getSindicatos() {
         return sindicatos;
     }
 
     public int getContador() {
-        return contador;
+        return contador.get();
     }
 
     public void setContador(int contador) {
-        this.contador = contador;
+        this.contador.set(contador);
+    }
+
+    // Reserva o próximo número de id
+    public int alocaId() {
+        return contador.getAndIncrement();
     }
 
     public int getProximoId() {
@@ -35,20 +186,148 @@ public class EmpregadoRepository {
         this.proximoId = proximoId;
     }
 
-    public Empregado getEmpregado(String id) {
+    public Empregado getEmpregado(int id) {
         return empregados.get(id);
     }
 
-    public void addEmpregado(String id, Empregado empregado) {
-        empregados.put(id, empregado);
+    // Também serve para trocar o objeto de um id existente (mudança de tipo)
+    public void addEmpregado(int id, Empregado empregado) {
+        Empregado anterior = empregados.get(id);
+        empregados = empregados.associa(id, empregado);
+        if (anterior != null) {
+            retiraDaParticao(id, anterior);
+        }
+        colocaNaParticao(id, empregado);
+        empregado.anotaAlteracoesEm(alteracoes);
+        indexaNome(id, empregado.getNome());
+    }
+
+    public void removeEmpregado(int id) {
+        Empregado anterior = empregados.get(id);
+        empregados = empregados.remove(id);
+        if (anterior != null) {
+            retiraDaParticao(id, anterior);
+        }
+    }
+
+    // O nome é a chave do índice: renomear tem que passar por aqui
+    public void renomeiaEmpregado(int id, String nome) {
+        Empregado e = empregados.get(id);
+        retiraDaParticao(id, e);
+        e.setNome(nome);
+        colocaNaParticao(id, e);
+        indexaNome(id, nome);
+    }
+
+    // ---------------- Busca por nome ----------------
+    // Devolve o id do indice-ésimo empregado (na ordem de cadastro) cujo nome contém o trecho, ou
+    // IdEmpregado.INEXISTENTE. Com trecho de pelo menos 3 caracteres, só os candidatos do índice são
+    // conferidos; ids crescentes são a ordem de cadastro, a mesma da tabela de empregados.
+    public int buscaPorNome(String trecho, int indice) {
+        TabelaEmpregados empregados = this.empregados;
+        if (trecho.length() >= IndiceTrigramas.N) {
+            return buscaNoIndice(empregados, trecho, indice);
+        }
+        int encontrados = 0;
+        for (int id = 1; id < empregados.limite(); id++) {
+            Empregado e = empregados.get(id);
+            if (e != null && e.getNome().contains(trecho) && ++encontrados == indice) {
+                return id;
+            }
+        }
+        return IdEmpregado.INEXISTENTE;
     }
 
-    public void removeEmpregado(String id) {
-        empregados.remove(id);
+    // Chamado com a estrutura travada para leitura; duas buscas ao mesmo tempo podem querer reconstruir o índice
+    private int buscaNoIndice(TabelaEmpregados empregados, String trecho, int indice) {
+        synchronized (indiceNomes) {
+            if (!indiceNomesValido) {
+                reconstroiIndiceNomes();
+            }
+            int encontrados = 0;
+            IndiceTrigramas.ListaIds candidatos = indiceNomes.candidatos(trecho);
+            for (int i = 0; i < candidatos.tamanho(); i++) {
+                int id = candidatos.get(i);
+                Empregado e = empregados.get(id);
+                if (e != null && e.getNome().contains(trecho) && ++encontrados == indice) {
+                    return id;
+                }
+            }
+            return IdEmpregado.INEXISTENTE;
+        }
     }
 
-    public boolean containsEmpregado(String id) {
-        return empregados.containsKey(id);
+    private void indexaNome(int id, String nome) {
+        if (!indiceNomesValido) {
+            return; // vai ser reconstruído na próxima busca
+        }
+        indiceNomes.indexa(id, nome);
+        if (indiceNomes.getTotalPostagens() > 2 * Math.max(postagensNaReconstrucao, POSTAGENS_MINIMAS_RECONSTRUCAO)) {
+            reconstroiIndiceNomes();
+        }
+    }
+
+    private void reconstroiIndiceNomes() {
+        indiceNomes.limpa();
+        empregados.paraCada((e, id) -> indiceNomes.indexa(id, e.getNome()));
+        postagensNaReconstrucao = indiceNomes.getTotalPostagens();
+        geracaoIndiceNomes++;
+        indiceNomesValido = true;
+    }
+
+    private ChaveNome chaveNome(int id, Empregado e) {
+        return new ChaveNome(collator.getCollationKey(e.getNome().trim()), id);
+    }
+
+    private void colocaNaParticao(int id, Empregado e) {
+        colocaNaParticaoPorTipo(id, e);
+        GrupoPagamento grupo = GrupoPagamento.de(e);
+        TabelaEmpregados membros = grupos.get(grupo);
+        grupos = grupos.associa(grupo, (membros == null ? TabelaEmpregados.vazia() : membros).associa(id, e));
+    }
+
+    private void colocaNaParticaoPorTipo(int id, Empregado e) {
+        if (e instanceof EmpregadoHorista horista) {
+            horistas = horistas.insere(chaveNome(id, e), horista);
+        } else if (e instanceof EmpregadoComissionado comissionado) {
+            ChaveNome chave = chaveNome(id, e);
+            comissionados = comissionados.insere(chave, comissionado);
+            GrupoPagamento grupo = GrupoPagamento.de(e);
+            ArvorePersistente<ChaveNome, EmpregadoComissionado> membros = comissionadosPorGrupo.get(grupo);
+            comissionadosPorGrupo = comissionadosPorGrupo.associa(grupo,
+                    (membros == null ? ArvorePersistente.<ChaveNome, EmpregadoComissionado>vazia() : membros).insere(chave, comissionado));
+        } else if (e instanceof EmpregadoAssalariado assalariado) {
+            assalariados = assalariados.insere(chaveNome(id, e), assalariado);
+        }
+    }
+
+    private void retiraDaParticao(int id, Empregado e) {
+        if (e instanceof EmpregadoHorista) {
+            horistas = horistas.remove(chaveNome(id, e));
+        } else if (e instanceof EmpregadoComissionado) {
+            ChaveNome chave = chaveNome(id, e);
+            comissionados = comissionados.remove(chave);
+            GrupoPagamento grupo = GrupoPagamento.de(e);
+            ArvorePersistente<ChaveNome, EmpregadoComissionado> membros = comissionadosPorGrupo.get(grupo);
+            if (membros != null) {
+                membros = membros.remove(chave);
+                comissionadosPorGrupo = membros.tamanho() == 0
+                        ? comissionadosPorGrupo.remove(grupo) : comissionadosPorGrupo.associa(grupo, membros);
+            }
+        } else if (e instanceof EmpregadoAssalariado) {
+            assalariados = assalariados.remove(chaveNome(id, e));
+        }
+        GrupoPagamento grupo = GrupoPagamento.de(e);
+        TabelaEmpregados membros = grupos.get(grupo);
+        if (membros != null) {
+            membros = membros.remove(id);
+            grupos = membros.tamanho() == 0 ? grupos.remove(grupo) : grupos.associa(grupo, membros);
+        }
+    }
+
+
+    public boolean containsEmpregado(int id) {
+        return empregados.contem(id);
     }
 
     public Empregado getSindicato(String idSindicato) {
@@ -63,10 +342,174 @@ public class EmpregadoRepository {
         sindicatos.remove(idSindicato);
     }
 
-    public EmpregadoRepository(Map<String, Empregado> empregados, Map<String, Empregado> sindicatos, int contador, int proximoId) {
-        this.empregados = empregados;
-        this.sindicatos = sindicatos;
-        this.contador = contador;
+    // ---------------- Travas ----------------
+    // Mudança de estrutura: espera os lançamentos em andamento e tranca todas as faixas,
+    // para que as leituras otimistas percebam que algo mudou. Reentrante na mesma thread.
+    public <T> T exclusivo(Supplier<T> operacao) {
+        if (estrutura.isWriteLockedByCurrentThread()) {
+            return operacao.get();
+        }
+        estrutura.writeLock().lock();
+        long[] carimbos = new long[FAIXAS];
+        try {
+            for (int i = 0; i < FAIXAS; i++) {
+                carimbos[i] = faixas[i].writeLock();
+            }
+            try {
+                return operacao.get();
+            } finally {
+                for (int i = FAIXAS - 1; i >= 0; i--) {
+                    faixas[i].unlockWrite(carimbos[i]);
+                }
+            }
+        } finally {
+            estrutura.writeLock().unlock();
+        }
+    }
+
+    public void exclusivo(Runnable operacao) {
+        exclusivo(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    // Operação que não muda a estrutura (lançamentos, busca por nome): várias ao mesmo tempo
+    public <T> T compartilhado(Supplier<T> operacao) {
+        estrutura.readLock().lock();
+        try {
+            return operacao.get();
+        } finally {
+            estrutura.readLock().unlock();
+        }
+    }
+
+    public void compartilhado(Runnable operacao) {
+        compartilhado(() -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    // Altera os lançamentos de um empregado; chamado dentro de compartilhado (ou exclusivo)
+    public void alteraLancamentos(Empregado e, Runnable alteracao) {
+        if (estrutura.isWriteLockedByCurrentThread()) {
+            alteracao.run(); // as faixas já são desta thread
+            return;
+        }
+        StampedLock faixa = faixaDe(e);
+        long carimbo = faixa.writeLock();
+        try {
+            alteracao.run();
+        } finally {
+            faixa.unlockWrite(carimbo);
+        }
+    }
+
+    // Lê sem travar; se o empregado mudou no meio, a leitura é refeita com a faixa travada para leitura.
+    // Uma exceção vinda de dados pela metade também só vale depois de confirmada.
+    public <T> T leLancamentos(Empregado e, Supplier<T> leitura) {
+        if (estrutura.isWriteLockedByCurrentThread()) {
+            return leitura.get();
+        }
+        StampedLock faixa = faixaDe(e);
+        long carimbo = faixa.tryOptimisticRead();
+        if (carimbo != 0) {
+            try {
+                T resultado = leitura.get();
+                if (faixa.validate(carimbo)) {
+                    return resultado;
+                }
+            } catch (RuntimeException ex) {
+                if (faixa.validate(carimbo)) {
+                    throw ex;
+                }
+            }
+        }
+        carimbo = faixa.readLock();
+        try {
+            return leitura.get();
+        } finally {
+            faixa.unlockRead(carimbo);
+        }
+    }
+
+    private StampedLock faixaDe(Empregado e) {
+        int h = System.identityHashCode(e);
+        return faixas[(h ^ (h >>> 16)) & (FAIXAS - 1)];
+    }
+
+    // ---------------- Estado (zerarSistema / undo) ----------------
+    // Os mapas são persistentes: capturar e restaurar um estado são cópias de ponteiro, O(1)
+    public EstadoSistema capturarEstado() {
+        EstadoSistema estado = new EstadoSistema(empregados, sindicatos.instantaneo(), contador.get(), proximoId);
+        estado.horistasBackup = horistas;
+        estado.assalariadosBackup = assalariados;
+        estado.comissionadosBackup = comissionados;
+        estado.gruposBackup = grupos;
+        estado.comissionadosPorGrupoBackup = comissionadosPorGrupo;
+        estado.geracaoIndiceNomesBackup = indiceNomesValido ? geracaoIndiceNomes : 0;
+        return estado;
+    }
+
+    public void restaurarEstado(EstadoSistema estado) {
+        empregados = estado.empregadosBackup;
+        sindicatos.restaura(estado.sindicatosBackup);
+        this.contador.set(estado.contadorBackup);
+        this.proximoId = estado.proximoIdBackup;
+        if (estado.horistasBackup == null) {
+            reconstroiParticoes();
+        } else {
+            horistas = estado.horistasBackup;
+            assalariados = estado.assalariadosBackup;
+            comissionados = estado.comissionadosBackup;
+            grupos = estado.gruposBackup;
+            comissionadosPorGrupo = estado.comissionadosPorGrupoBackup;
+        }
+        if (estado.geracaoIndiceNomesBackup != geracaoIndiceNomes) {
+            indiceNomesValido = false;
+        }
+    }
+
+    private void reconstroiParticoes() {
+        horistas = ArvorePersistente.vazia();
+        assalariados = ArvorePersistente.vazia();
+        comissionados = ArvorePersistente.vazia();
+        comissionadosPorGrupo = MapaPersistente.vazio();
+        // grupos montados em lote: uma tabela por grupo, sem uma cópia de caminho por membro
+        Map<GrupoPagamento, List<Empregado>> membros = new LinkedHashMap<>();
+        empregados.paraCada((e, id) -> {
+            colocaNaParticaoPorTipo(id, e);
+            e.anotaAlteracoesEm(alteracoes);
+            List<Empregado> posicoes = membros.computeIfAbsent(GrupoPagamento.de(e), g -> new ArrayList<>());
+            while (posicoes.size() < id) {
+                posicoes.add(null);
+            }
+            posicoes.add(e);
+        });
+        MapaPersistente<GrupoPagamento, TabelaEmpregados> novos = MapaPersistente.vazio();
+        for (Map.Entry<GrupoPagamento, List<Empregado>> grupo : membros.entrySet()) {
+            novos = novos.associa(grupo.getKey(), TabelaEmpregados.de(grupo.getValue()));
+        }
+        grupos = novos;
+    }
+
+    public void zerar() {
+        empregados = TabelaEmpregados.vazia();
+        sindicatos.clear();
+        horistas = ArvorePersistente.vazia();
+        assalariados = ArvorePersistente.vazia();
+        comissionados = ArvorePersistente.vazia();
+        grupos = MapaPersistente.vazio();
+        comissionadosPorGrupo = MapaPersistente.vazio();
+        this.contador.set(1);
+        this.proximoId = 0;
+    }
+
+    public EmpregadoRepository(TabelaEmpregados empregados, Map<String, Empregado> sindicatos, int contador, int proximoId) {
+        empregados.paraCada((e, id) -> addEmpregado(id, e));
+        this.sindicatos.putAll(sindicatos);
+        this.contador.set(contador);
         this.proximoId = proximoId;
     }
 
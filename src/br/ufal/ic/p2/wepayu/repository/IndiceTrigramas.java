@@ -0,0 +1,80 @@
+package br.ufal.ic.p2.wepayu.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Índice de substrings dos nomes: para cada trigrama, os números de id (empN -> N) cujo nome o contém, em ordem crescente.
+// Só cresce: renomear/remover não tira postagens, então o índice cobre também os estados que o undo pode restaurar.
+// Quem consulta confere cada candidato no mapa atual; quando o lixo passa do tamanho útil, o repositório reconstrói.
+class IndiceTrigramas {
+    static final int N = 3;
+    private static final ListaIds NENHUM = new ListaIds();
+
+    private final Map<Long, ListaIds> postagens = new HashMap<>();
+    private long totalPostagens = 0;
+
+    static final class ListaIds {
+        private int[] ids = new int[2];
+        private int tamanho = 0;
+
+        int tamanho() {
+            return tamanho;
+        }
+
+        int get(int i) {
+            return ids[i];
+        }
+
+        boolean adiciona(int id) {
+            int posicao = tamanho > 0 && ids[tamanho - 1] >= id ? Arrays.binarySearch(ids, 0, tamanho, id) : -(tamanho + 1);
+            if (posicao >= 0) {
+                return false;
+            }
+            posicao = -(posicao + 1);
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            System.arraycopy(ids, posicao, ids, posicao + 1, tamanho - posicao);
+            ids[posicao] = id;
+            tamanho++;
+            return true;
+        }
+    }
+
+    void indexa(int id, String nome) {
+        for (int i = 0; i + N <= nome.length(); i++) {
+            if (postagens.computeIfAbsent(trigrama(nome, i), t -> new ListaIds()).adiciona(id)) {
+                totalPostagens++;
+            }
+        }
+    }
+
+    // A menor lista entre os trigramas do trecho: todo nome que contém o trecho está nela
+    ListaIds candidatos(String trecho) {
+        ListaIds menor = null;
+        for (int i = 0; i + N <= trecho.length(); i++) {
+            ListaIds lista = postagens.get(trigrama(trecho, i));
+            if (lista == null) {
+                return NENHUM;
+            }
+            if (menor == null || lista.tamanho < menor.tamanho) {
+                menor = lista;
+            }
+        }
+        return menor;
+    }
+
+    long getTotalPostagens() {
+        return totalPostagens;
+    }
+
+    void limpa() {
+        postagens.clear();
+        totalPostagens = 0;
+    }
+
+    private static long trigrama(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,334 @@
+package br.ufal.ic.p2.wepayu.repository;
+
+import br.ufal.ic.p2.wepayu.Exception.ErroGeracaoArquivoException;
+import br.ufal.ic.p2.wepayu.Exception.ErroLeituraArquivoException;
+import br.ufal.ic.p2.wepayu.models.*;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Snapshot binário do repositório: gravado em encerrarSistema e lido na criação da Facade.
+// Formato (big-endian): cabeçalho, empregados na ordem do mapa (com os lançamentos), sindicatos.
+// O cabeçalho guarda a sequência do último registro do diário já incluído no snapshot.
+// Desde a versão 3 os ids de empregado são gravados pelo número (empN -> N); antes, como texto.
+public class PersistenciaRepository {
+    public static final Path ARQUIVO_PADRAO = Path.of("wepayu.dat");
+
+    private static final int MAGICO = 0x57505531; // "WPU1"
+    private static final int VERSAO = 3;
+    private static final long DATA_NULA = Long.MIN_VALUE;
+    private static final byte HORISTA = 'H', ASSALARIADO = 'A', COMISSIONADO = 'C';
+    private static final byte REFERENCIA = 0, EMBUTIDO = 1;
+
+    private final EmpregadoRepository empregadoRepository;
+    private final Path arquivo;
+
+    public PersistenciaRepository(EmpregadoRepository empregadoRepository, Path arquivo) {
+        this.empregadoRepository = empregadoRepository;
+        this.arquivo = arquivo;
+    }
+
+    // ---------------- Gravação ----------------
+    // Grava num .tmp, força o .tmp para o disco, renomeia por cima do snapshot e força o diretório.
+    // Só depois disso o checkpoint pode truncar o diário: uma queda em qualquer ponto deixa ou o
+    // snapshot antigo com o diário inteiro, ou o novo completo.
+    public void salvar(long sequenciaDiario) {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporario,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16));
+            out.writeInt(MAGICO);
+            out.writeInt(VERSAO);
+            out.writeLong(sequenciaDiario);
+            out.writeInt(empregadoRepository.getContador());
+            out.writeInt(empregadoRepository.getProximoId());
+
+            Map<Empregado, Integer> ids = new IdentityHashMap<>();
+            out.writeInt(empregadoRepository.getNumeroDeEmpregados());
+            TabelaEmpregados tabela = empregadoRepository.getEmpregados();
+            for (int id = 1; id < tabela.limite(); id++) {
+                Empregado e = tabela.get(id);
+                if (e != null) {
+                    ids.put(e, id);
+                    out.writeInt(id);
+                    escreveEmpregado(out, e);
+                }
+            }
+
+            // o sindicato normalmente aponta para um empregado já gravado; se não, grava o objeto junto
+            out.writeInt(empregadoRepository.getSindicatos().size());
+            for (Map.Entry<String, Empregado> entry : empregadoRepository.getSindicatos().entrySet()) {
+                escreveString(out, entry.getKey());
+                Integer id = ids.get(entry.getValue());
+                if (id != null) {
+                    out.writeByte(REFERENCIA);
+                    out.writeInt(id);
+                } else {
+                    out.writeByte(EMBUTIDO);
+                    escreveEmpregado(out, entry.getValue());
+                }
+            }
+            out.flush();
+            canal.force(true);
+        } catch (IOException e) {
+            throw new ErroGeracaoArquivoException("Erro ao gravar arquivo de dados: " + arquivo);
+        }
+
+        try {
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forcaDiretorio();
+        } catch (IOException e) {
+            throw new ErroGeracaoArquivoException("Erro ao gravar arquivo de dados: " + arquivo);
+        }
+    }
+
+    // O rename só sobrevive a uma queda quando a entrada do diretório chega ao disco. No Windows não
+    // há como abrir o diretório; lá o próprio rename (MoveFileEx) já é gravado de forma síncrona.
+    private void forcaDiretorio() throws IOException {
+        Path diretorio = arquivo.toAbsolutePath().getParent();
+        if (diretorio == null || File.separatorChar == '\\') {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        }
+    }
+
+    private void escreveEmpregado(DataOutputStream out, Empregado e) throws IOException {
+        out.writeByte(e instanceof EmpregadoHorista ? HORISTA : e instanceof EmpregadoComissionado ? COMISSIONADO : ASSALARIADO);
+        escreveString(out, e.getNome());
+        escreveString(out, e.getEndereco());
+        escreveString(out, e.getTipo());
+        out.writeDouble(e.getSalario());
+        out.writeDouble(e.getComissao());
+        escreveString(out, e.getMetodoPagamento());
+        escreveString(out, e.getBanco());
+        escreveString(out, e.getAgencia());
+        escreveString(out, e.getContaCorrente());
+        out.writeBoolean(e.isSindicalizado());
+        escreveString(out, e.getIdSindicato());
+        out.writeDouble(e.getTaxaSindical());
+        escreveData(out, e.dataContrato);
+        escreveData(out, e.ultimoPagamento);
+
+        escreveSerie(out, e.getTaxasServico());
+        if (e instanceof EmpregadoHorista horista) {
+            escreveSerie(out, horista.getRegistros());
+        } else if (e instanceof EmpregadoComissionado comissionado) {
+            escreveSerie(out, comissionado.getVendas());
+        }
+    }
+
+    private static void escreveSerie(DataOutputStream out, SerieTemporal serie) throws IOException {
+        out.writeInt(serie.tamanho());
+        for (int i = 0; i < serie.tamanho(); i++) {
+            out.writeInt(serie.dia(i));
+            out.writeDouble(serie.valor(i));
+        }
+    }
+
+    private static void escreveString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void escreveData(DataOutputStream out, LocalDate data) throws IOException {
+        out.writeLong(data == null ? DATA_NULA : data.toEpochDay());
+    }
+
+    // ---------------- Leitura ----------------
+    // Carrega o snapshot, se existir, direto do arquivo mapeado em memória.
+    // Devolve a sequência do diário a partir da qual os registros ainda precisam ser reaplicados.
+    public long carregar() {
+        if (!Files.isRegularFile(arquivo)) {
+            return 0;
+        }
+        try (Leitor in = new Leitor(FileChannel.open(arquivo, StandardOpenOption.READ))) {
+            int versao;
+            if (in.leInt() != MAGICO || (versao = in.leInt()) < 1 || versao > VERSAO) {
+                throw new ErroLeituraArquivoException("Arquivo de dados invalido: " + arquivo);
+            }
+            long sequenciaDiario = versao >= 2 ? in.leLong() : 0;
+            int contador = in.leInt();
+            int proximoId = in.leInt();
+
+            // ids crescentes: a tabela é montada de uma vez (TabelaEmpregados.de), vagas como null
+            int quantidade = in.leInt();
+            List<Empregado> posicoes = new ArrayList<>(quantidade + 1);
+            for (int i = 0; i < quantidade; i++) {
+                int id = leId(in, versao);
+                if (id < posicoes.size() || id <= 0) {
+                    throw new ErroLeituraArquivoException("Erro ao ler arquivo de dados: " + arquivo);
+                }
+                while (posicoes.size() < id) {
+                    posicoes.add(null);
+                }
+                posicoes.add(leEmpregado(in));
+            }
+            TabelaEmpregados tabela = TabelaEmpregados.de(posicoes);
+
+            // sindicatos montados de uma vez (MapaPersistente.de) em vez de um put por membro
+
+            quantidade = in.leInt();
+            List<String> idsSindicato = new ArrayList<>(quantidade);
+            List<Empregado> membros = new ArrayList<>(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                idsSindicato.add(in.leString());
+                membros.add(in.leByte() == REFERENCIA ? tabela.get(leId(in, versao)) : leEmpregado(in));
+            }
+
+            empregadoRepository.restaurarEstado(new EstadoSistema(
+                    tabela, MapaPersistente.de(idsSindicato, membros), contador, proximoId));
+            return sequenciaDiario;
+        } catch (IOException e) {
+            throw new ErroLeituraArquivoException("Erro ao ler arquivo de dados: " + arquivo);
+        }
+    }
+
+    private static int leId(Leitor in, int versao) throws IOException {
+        return versao >= 3 ? in.leInt() : IdEmpregado.interpreta(in.leString());
+    }
+
+    private Empregado leEmpregado(Leitor in) throws IOException {
+        byte classe = in.leByte();
+        String nome = in.leString();
+        String endereco = in.leString();
+        String tipo = in.leString();
+        double salario = in.leDouble();
+        double comissao = in.leDouble();
+
+        Empregado e = switch (classe) {
+            case HORISTA -> new EmpregadoHorista(nome, endereco, salario);
+            case COMISSIONADO -> new EmpregadoComissionado(nome, endereco, tipo, salario, comissao);
+            default -> new EmpregadoAssalariado(nome, endereco, salario);
+        };
+        e.setTipo(tipo);
+        e.setComissao(comissao);
+        e.setMetodoPagamentoBanco(in.leString(), in.leString(), in.leString(), in.leString());
+
+        boolean sindicalizado = in.leBoolean();
+        String idSindicato = in.leString();
+        double taxaSindical = in.leDouble();
+        if (sindicalizado) {
+            e.setSindicalizado(true, idSindicato, taxaSindical);
+        }
+        LocalDate dataContrato = in.leData();
+        LocalDate ultimoPagamento = in.leData();
+
+        int taxas = in.leInt();
+        for (int i = 0; i < taxas; i++) {
+            e.lancaTaxaServico(LocalDate.ofEpochDay(in.leInt()), in.leDouble());
+        }
+        if (e instanceof EmpregadoHorista horista) {
+            int registros = in.leInt();
+            for (int i = 0; i < registros; i++) {
+                horista.lancaCartao(LocalDate.ofEpochDay(in.leInt()), in.leDouble());
+            }
+        } else if (e instanceof EmpregadoComissionado comissionado) {
+            int vendas = in.leInt();
+            for (int i = 0; i < vendas; i++) {
+                comissionado.lancaVenda(LocalDate.ofEpochDay(in.leInt()), in.leDouble());
+            }
+        }
+
+        // por último: lancaCartao define a data de contrato do horista no primeiro cartão
+        e.dataContrato = dataContrato;
+        e.ultimoPagamento = ultimoPagamento;
+        return e;
+    }
+
+    // Lê o arquivo por janelas mapeadas, remapeando quando o próximo valor não cabe na janela atual
+    private static final class Leitor implements Closeable {
+        private static final long JANELA = 64L * 1024 * 1024;
+
+        private final FileChannel canal;
+        private final long tamanho;
+        private long inicioJanela = 0;
+        private MappedByteBuffer buffer;
+
+        Leitor(FileChannel canal) throws IOException {
+            this.canal = canal;
+            this.tamanho = canal.size();
+        }
+
+        private void garante(int bytes) throws IOException {
+            if (buffer != null && buffer.remaining() >= bytes) {
+                return;
+            }
+            long posicao = buffer == null ? 0 : inicioJanela + buffer.position();
+            long janela = Math.min(Math.max(JANELA, bytes), tamanho - posicao);
+            if (janela < bytes) {
+                throw new EOFException();
+            }
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, posicao, janela);
+            inicioJanela = posicao;
+        }
+
+        byte leByte() throws IOException {
+            garante(1);
+            return buffer.get();
+        }
+
+        boolean leBoolean() throws IOException {
+            return leByte() != 0;
+        }
+
+        int leInt() throws IOException {
+            garante(4);
+            return buffer.getInt();
+        }
+
+        long leLong() throws IOException {
+            garante(8);
+            return buffer.getLong();
+        }
+
+        double leDouble() throws IOException {
+            garante(8);
+            return buffer.getDouble();
+        }
+
+        String leString() throws IOException {
+            int tamanho = leInt();
+            if (tamanho < 0) {
+                return null;
+            }
+            garante(tamanho);
+            byte[] bytes = new byte[tamanho];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        LocalDate leData() throws IOException {
+            long dia = leLong();
+            return dia == DATA_NULA ? null : LocalDate.ofEpochDay(dia);
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
@@ -3,35 +3,49 @@ package br.ufal.ic.p2.wepayu.service;
 import br.ufal.ic.p2.wepayu.Exception.*;
 import br.ufal.ic.p2.wepayu.models.*;
 import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class EmpregadoService {
     private final EmpregadoRepository empregadoRepository;
+    private final HistoricoSistema historico;
     private final FormataHoraData fmt;
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // Estimativa grosseira de um empregado e dos nós de mapa que uma versão antiga mantém vivos
+    private static final long BYTES_POR_EMPREGADO = 256;
 
-    public EmpregadoService(EmpregadoRepository empregadoRepository) {
+    public EmpregadoService(EmpregadoRepository empregadoRepository, HistoricoSistema historico) {
         this.empregadoRepository = empregadoRepository;
+        this.historico = historico;
         this.fmt = new FormataHoraData();
     }
 
-    public void identificacaoEmpregadoNula(String emp) {
-        if (emp == null || emp.isEmpty()) {
+    public EmpregadoRepository getEmpregadoRepository() {
+        return empregadoRepository;
+    }
+
+    public void identificacaoEmpregadoNula(int emp) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
     }
 
-    public void contemEmpregado(String emp) {
+    public void contemEmpregado(int emp) {
         if (!empregadoRepository.containsEmpregado(emp)) {
             throw new EmpregadoNaoExisteException();
         }
     }
 
     // ---------------- Criar Empregado Horista ou Assalariado ----------------
-    public String criarEmpregado (String nome, String endereco, String tipo, String salario) {
+    public int criarEmpregado (String nome, String endereco, String tipo, String salario) {
         if (nome==null || nome.isEmpty())
             throw new NomeNuloException();
         if (endereco==null || endereco.isEmpty())
@@ -46,7 +60,7 @@ public class EmpregadoService {
 
         double salarioConvertido;
         try {
-            salarioConvertido = Double.parseDouble(salario.replace(",", "."));
+            salarioConvertido = CodecDataNumero.decimal(salario);
         } catch (NumberFormatException e) {
             throw new SalarioNaoNumericoException();
         }
@@ -54,20 +68,18 @@ public class EmpregadoService {
         if (salarioConvertido < 0)
             throw new SalarioNegativoException();
 
-        int idNum = empregadoRepository.getContador();
-        String id = "emp" + idNum;
-        empregadoRepository.setContador(idNum + 1);
+        Empregado novo;
         if (tipoLower.equals("horista")) {
-            empregadoRepository.getEmpregados().put(id, new EmpregadoHorista(nome, endereco, salarioConvertido));
+            novo = new EmpregadoHorista(nome, endereco, salarioConvertido);
         } else { // assalariado
-            empregadoRepository.getEmpregados().put(id, new EmpregadoAssalariado(nome, endereco, salarioConvertido));
+            novo = new EmpregadoAssalariado(nome, endereco, salarioConvertido);
         }
 
-        return id;
+        return adicionaEmpregado(novo);
     }
 
     // ---------------- Criar Empregado Comissionado ----------------
-    public String criarEmpregado (String nome, String endereco, String tipo, String salario, String comissao) {
+    public int criarEmpregado (String nome, String endereco, String tipo, String salario, String comissao) {
         if (nome==null || nome.isEmpty())
             throw new NomeNuloException();
         if (endereco==null || endereco.isEmpty())
@@ -82,7 +94,7 @@ public class EmpregadoService {
 
         double salarioConvertido;
         try {
-            salarioConvertido = Double.parseDouble(salario.replace(",", "."));
+            salarioConvertido = CodecDataNumero.decimal(salario);
         } catch (NumberFormatException e) {
             throw new SalarioNaoNumericoException();
         }
@@ -95,7 +107,7 @@ public class EmpregadoService {
 
         double comissaoConvertida;
         try {
-            comissaoConvertida = Double.parseDouble(comissao.replace(",", "."));
+            comissaoConvertida = CodecDataNumero.decimal(comissao);
         } catch (NumberFormatException e) {
             throw new ComissaoNaoNumericaException();
         }
@@ -103,243 +115,270 @@ public class EmpregadoService {
         if (comissaoConvertida < 0)
             throw new ComissaoNegativaException();
 
-        int idNum = empregadoRepository.getContador();
-        String id = "emp" + idNum;
-        empregadoRepository.setContador(idNum + 1);
-        empregadoRepository.getEmpregados().put(id, new EmpregadoComissionado(nome, endereco, tipo, salarioConvertido, comissaoConvertida));
+        return adicionaEmpregado(new EmpregadoComissionado(nome, endereco, tipo, salarioConvertido, comissaoConvertida));
+    }
 
+    private int adicionaEmpregado(Empregado novo) {
+        int id = empregadoRepository.alocaId();
+        empregadoRepository.addEmpregado(id, novo);
+
+        // o novo empregado é sempre o último do mapa, então desfazer/refazer não altera a ordem dos demais
+        historico.registrar(Comando.de(
+                () -> {
+                    empregadoRepository.removeEmpregado(id);
+                    empregadoRepository.setContador(id);
+                },
+                () -> {
+                    empregadoRepository.addEmpregado(id, novo);
+                    empregadoRepository.setContador(id + 1);
+                }));
         return id;
     }
 
     // ---------------- Remover Empregado ----------------
-    public void removerEmpregado(String emp) {
-        empregadoRepository.getEmpregados().remove(emp);
+    public void removerEmpregado(int emp) {
+        EstadoSistema antes = empregadoRepository.capturarEstado();
+        empregadoRepository.removeEmpregado(emp);
+        registraEstado(antes, BYTES_POR_EMPREGADO);
+    }
+
+    // ---------------- Zerar Sistema ----------------
+    public void zerarSistema() {
+        EstadoSistema antes = empregadoRepository.capturarEstado();
+        empregadoRepository.zerar();
+        // a versão anterior segura a empresa inteira enquanto estiver no histórico
+        registraEstado(antes, antes.empregadosBackup.tamanho() * BYTES_POR_EMPREGADO);
     }
 
     // ---------------- Obter atributos do empregado ----------------
-    public String getAtributoEmpregado(String emp, String atributo) {
-        if (emp == null || emp.isEmpty()) {
+    public String getAtributoEmpregado(int emp, String atributo) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        if (!empregadoRepository.getEmpregados().containsKey(emp)) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
             throw new EmpregadoNaoExisteException();
         }
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
-        return switch (atributo) {
-            case "nome" -> e.getNome();
-            case "endereco" -> e.getEndereco();
-            case "tipo" -> e.getTipo();
-            case "salario" -> String.format("%.2f", e.getSalario()).replace(".", ",");
-            case "comissao" -> {
-                if (!(e instanceof EmpregadoComissionado)) {
-                    throw new EmpregadoNaoComissionadoException();
-                }
-                yield String.format("%.2f", e.getComissao()).replace(".", ",");
-            }
-            case "sindicalizado" -> Boolean.toString(e.isSindicalizado());
-            case "metodoPagamento" -> e.getMetodoPagamento();
-            case "banco", "agencia", "contaCorrente" -> {
-                if (!e.recebeEmBanco()) {
-                    throw new EmpregadoNaoRecebeBancoException();
-                }
-                if (atributo.equals("banco")) {
-                    yield e.getBanco();
-                } else if (atributo.equals("agencia")) {
-                    yield e.getAgencia();
-                } else if (atributo.equals("contaCorrente")) {
-                    yield e.getContaCorrente();
-                } else {
-                    yield null;
-                }
-            }
-            case "idSindicato" -> {
-                if (!e.isSindicalizado()) {
-                    throw new EmpregadoNaoSindicalizadoException();
-                }
-                yield e.getIdSindicato();
-            }
-            case "taxaSindical" -> {
-                if (!e.isSindicalizado()) {
-                    throw new EmpregadoNaoSindicalizadoException();
-                }
-                yield String.format("%.2f", e.getTaxaSindical()).replace(".", ",");
-            }
-            default -> throw new AtributoNaoExisteException();
-        };
+        // A projeção só é refeita depois de uma alteração; a montada sob a leitura da faixa é consistente
+        AtributosEmpregado atributos = e.getAtributos();
+        if (atributos == null) {
+            atributos = empregadoRepository.leLancamentos(e, e::projetaAtributos);
+            e.guardaAtributos(atributos);
+        }
+        return atributos.get(atributo);
     }
 
     public int getNumeroDeEmpregados() {
-        return empregadoRepository.getEmpregados().size();
+        return empregadoRepository.getNumeroDeEmpregados();
     }
 
     // ---------------- Buscar empregado pelo nome ----------------
-    public String getEmpregadoPorNome(String nome, int indice) {
+    public int getEmpregadoPorNome(String nome, int indice) {
         if (nome == null || nome.isEmpty())
             throw new NomeNuloException();
-        int count = 0;
-        for (Map.Entry<String, Empregado> entry : empregadoRepository.getEmpregados().entrySet()) {
-            Empregado e = entry.getValue();
-            if (e.getNome().contains(nome)) {
-                count++;
-                if (count == indice)
-                    return entry.getKey();
-            }
-        }
-        throw new EmpregadoNaoEncontradoException();
+        int id = empregadoRepository.buscaPorNome(nome, indice);
+        if (id == IdEmpregado.INEXISTENTE)
+            throw new EmpregadoNaoEncontradoException();
+        return id;
     }
 
     // ---------------- Horas trabalhadas (apenas para horista) ----------------
-    public void lancaCartao(String emp, String data, String horas) {
-        if (emp == null || emp.isEmpty()) {
+    // 'confirmacao' roda junto com o registro no histórico, na ordem dele (a Facade grava o diário ali)
+    public void lancaCartao(int emp, String data, String horas, Runnable confirmacao) {
+        EmpregadoHorista horista = horista(emp);
+        double h = horasCartao(horas);
+        LocalDate d = dataCartao(data);
+        empregadoRepository.alteraLancamentos(horista, () -> {
+            LocalDate contratoAnterior = horista.dataContrato;
+            horista.lancaCartao(d, h);
+
+            historico.registrar(Comando.de(
+                    () -> {
+                        horista.dataContrato = contratoAnterior;
+                        horista.removeRegistro(d, h);
+                    },
+                    () -> horista.lancaCartao(d, h)), confirmacao);
+        });
+    }
+
+    EmpregadoHorista horista(int emp) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        if (!empregadoRepository.getEmpregados().containsKey(emp)) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
             throw new EmpregadoNaoExisteException();
         }
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
         if (!(e instanceof EmpregadoHorista)) {
             throw new EmpregadoNaoHoristaException();
         }
+        return (EmpregadoHorista) e;
+    }
+
+    static double horasCartao(String horas) {
         if (horas == null || horas.isEmpty()) {
             throw new HorasEmpregadoNulaException();
         }
         double h;
         try {
-            h = Double.parseDouble(horas.replace(",", "."));
+            h = CodecDataNumero.decimal(horas);
         } catch (NumberFormatException ex) {
             throw new HorasNaoNumericasException();
         }
         if (h <= 0) {
             throw new HorasNaoPositivasException();
         }
-        String dataNorm = fmt.normalizarData(data, " ");
-        java.time.LocalDate d;
+        return h;
+    }
+
+    LocalDate dataCartao(String data) {
         try {
-            d = java.time.LocalDate.parse(dataNorm, formatter);
-        } catch (java.time.format.DateTimeParseException ex) {
+            return CodecDataNumero.data(data, " ");
+        } catch (DateTimeParseException ex) {
             throw new DataInvalidaException();
         }
-        ((EmpregadoHorista) e).lancaCartao(d, h);
     }
 
-    public String getHorasNormaisTrabalhadas(String emp, String dataInicial, String dataFinal) {
-        if (emp == null || emp.isEmpty()) {
+    public String getHorasNormaisTrabalhadas(int emp, String dataInicial, String dataFinal) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        if (!empregadoRepository.getEmpregados().containsKey(emp)) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
             throw new EmpregadoNaoExisteException();
         }
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
         if (!(e instanceof EmpregadoHorista)) {
             throw new EmpregadoNaoHoristaException();
         }
 
-        String inicioNorm = fmt.normalizarData(dataInicial, " inicial ");
-        String fimNorm = fmt.normalizarData(dataFinal, " final ");
-        LocalDate inicio = LocalDate.parse(inicioNorm, formatter);
-        LocalDate fim = LocalDate.parse(fimNorm, formatter);
+        long inicioLido = CodecDataNumero.leData(dataInicial, " inicial ");
+        long fimLido = CodecDataNumero.leData(dataFinal, " final ");
+        LocalDate inicio = CodecDataNumero.data(inicioLido);
+        LocalDate fim = CodecDataNumero.data(fimLido);
 
         if (fim.isBefore(inicio)) {
             throw new DataInicialPosteriorException();
         }
 
-        double horas = ((EmpregadoHorista) e).getHorasNormais(inicio, fim);
+        double horas = empregadoRepository.leLancamentos(e, () -> ((EmpregadoHorista) e).getHorasNormais(inicio, fim));
         return fmt.formatarHoras(horas);
     }
 
-    public String getHorasExtrasTrabalhadas(String emp, String dataInicial, String dataFinal) {
-        if (emp == null || emp.isEmpty()) {
+    public String getHorasExtrasTrabalhadas(int emp, String dataInicial, String dataFinal) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        if (!empregadoRepository.getEmpregados().containsKey(emp)) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
             throw new EmpregadoNaoExisteException();
         }
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
         if (!(e instanceof EmpregadoHorista)) {
             return "0";
         }
 
-        String inicioNorm = fmt.normalizarData(dataInicial, " inicial ");
-        String fimNorm = fmt.normalizarData(dataFinal, " final ");
-        LocalDate inicio = LocalDate.parse(inicioNorm, formatter);
-        LocalDate fim = LocalDate.parse(fimNorm, formatter);
+        long inicioLido = CodecDataNumero.leData(dataInicial, " inicial ");
+        long fimLido = CodecDataNumero.leData(dataFinal, " final ");
+        LocalDate inicio = CodecDataNumero.data(inicioLido);
+        LocalDate fim = CodecDataNumero.data(fimLido);
 
         if (fim.isBefore(inicio)) {
             throw new DataInicialPosteriorException();
         }
 
-        double horas = ((EmpregadoHorista) e).getHorasExtras(inicio, fim);
+        double horas = empregadoRepository.leLancamentos(e, () -> ((EmpregadoHorista) e).getHorasExtras(inicio, fim));
         return fmt.formatarHoras(horas);
     }
 
     // ---------------- Lança Venda (apenas para comissionado) ----------------
-    public void lancaVenda(String emp, String data, String valor) {
-        if (emp == null || emp.isEmpty()) {
+    public void lancaVenda(int emp, String data, String valor, Runnable confirmacao) {
+        EmpregadoComissionado comissionado = comissionado(emp);
+        LocalDate d = dataLancamento(data);
+        double v = valorVenda(valor);
+
+        empregadoRepository.alteraLancamentos(comissionado, () -> {
+            comissionado.lancaVenda(d, v);
+
+            historico.registrar(Comando.de(
+                    () -> comissionado.removeVenda(d, v),
+                    () -> comissionado.lancaVenda(d, v)), confirmacao);
+        });
+    }
+
+    EmpregadoComissionado comissionado(int emp) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        if (!empregadoRepository.containsEmpregado(emp)) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
             throw new EmpregadoNaoExisteException();
         }
-        Empregado e = empregadoRepository.getEmpregado(emp);
         if (!(e instanceof EmpregadoComissionado)) {
             throw new EmpregadoNaoComissionadoException();
         }
+        return (EmpregadoComissionado) e;
+    }
 
-        String dataNorm = fmt.normalizarData(data, " ");
-        LocalDate d = LocalDate.parse(dataNorm, formatter);
+    // Vendas e taxas não traduzem o erro do parse (ano 0000, por exemplo, passa pela validação)
+    LocalDate dataLancamento(String data) {
+        return CodecDataNumero.data(data, " ");
+    }
 
+    static double valorVenda(String valor) {
         double v;
         try {
-            v = Double.parseDouble(valor.replace(",", "."));
+            v = CodecDataNumero.decimal(valor);
         } catch (NumberFormatException ex) {
             throw new ValorNaoNumericoException();
         }
         if (v <= 0) {
             throw new ValorNaoPositivoException();
         }
-
-        ((EmpregadoComissionado) e).lancaVenda(d, v);
+        return v;
     }
 
-    public String getVendasRealizadas(String emp, String dataInicial, String dataFinal) {
-        if (emp == null || emp.isEmpty()) {
+    public String getVendasRealizadas(int emp, String dataInicial, String dataFinal) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        if (!empregadoRepository.getEmpregados().containsKey(emp)) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
             throw new EmpregadoNaoExisteException();
         }
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
         if (!(e instanceof EmpregadoComissionado)) {
             throw new EmpregadoNaoComissionadoException();
         }
 
-        String inicioNorm = fmt.normalizarData(dataInicial, " inicial ");
-        String fimNorm = fmt.normalizarData(dataFinal, " final ");
-        LocalDate inicio = LocalDate.parse(inicioNorm, formatter);
-        LocalDate fim = LocalDate.parse(fimNorm, formatter);
+        long inicioLido = CodecDataNumero.leData(dataInicial, " inicial ");
+        long fimLido = CodecDataNumero.leData(dataFinal, " final ");
+        LocalDate inicio = CodecDataNumero.data(inicioLido);
+        LocalDate fim = CodecDataNumero.data(fimLido);
 
         if (fim.isBefore(inicio)) {
             throw new DataInicialPosteriorException();
         }
 
-        double vendas = ((EmpregadoComissionado) e).getVendas(inicio, fim);
+        double vendas = empregadoRepository.leLancamentos(e, () -> ((EmpregadoComissionado) e).getVendas(inicio, fim));
 
-        return String.format("%.2f", vendas).replace(".", ",");
+        return Dinheiro.formataComVirgula(vendas);
     }
 
-    public void alteraEmpregado(String emp, String atributo, String valor) {
+    public void alteraEmpregado(int emp, String atributo, String valor) {
         alteraEmpregado(emp, atributo, valor, null, null);
     }
 
-    public void alteraEmpregado(String emp, String atributo, String valor, String idSindicato, String taxaSindical) {
+    public void alteraEmpregado(int emp, String atributo, String valor, String idSindicato, String taxaSindical) {
+        registraAlteracao(emp, () -> aplicaAlteracao(emp, atributo, valor, idSindicato, taxaSindical));
+    }
+
+    private void aplicaAlteracao(int emp, String atributo, String valor, String idSindicato, String taxaSindical) {
 
-        if (emp == null || emp.isEmpty()) {
+        if (emp == IdEmpregado.NULO) {
             throw new IdentificacaoEmpregadoNulaException();
         }
-        if (!empregadoRepository.containsEmpregado(emp)) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
             throw new EmpregadoNaoExisteException();
         }
-        Empregado e = empregadoRepository.getEmpregado(emp);
 
         if (atributo.equals("sindicalizado")) {
             if (!valor.equals("true") &&  !valor.equals("false")) {
@@ -359,7 +398,7 @@ public class EmpregadoService {
                 }
 
                 try {
-                    double taxa = Double.parseDouble(taxaSindical.replace(",", "."));
+                    double taxa = CodecDataNumero.decimal(taxaSindical);
                     if  (taxa <= 0) {
                         throw new TaxaSindicalNegativaException();
                     }
@@ -382,7 +421,7 @@ public class EmpregadoService {
             if (valor == null || valor.isEmpty()) {
                 throw new NomeNuloException();
             }
-            e.setNome(valor);
+            empregadoRepository.renomeiaEmpregado(emp, valor);
         }
         else if (atributo.equals("endereco")) {
             if (valor == null || valor.isEmpty()) {
@@ -395,19 +434,19 @@ public class EmpregadoService {
                 EmpregadoComissionado novo = new EmpregadoComissionado(
                         e.getNome(), e.getEndereco(), "comissionado", e.getSalario(), 0.0
                 );
-                empregadoRepository.getEmpregados().put(emp, novo); // substitui o antigo
+                empregadoRepository.addEmpregado(emp, novo); // substitui o antigo
             }
             else if (valor.equals("horista") && !(e instanceof EmpregadoHorista)) {
                 EmpregadoHorista novo = new EmpregadoHorista(
                         e.getNome(), e.getEndereco(), e.getSalario()
                 );
-                empregadoRepository.getEmpregados().put(emp, novo);
+                empregadoRepository.addEmpregado(emp, novo);
             }
             else if (valor.equals("assalariado") && !(e instanceof EmpregadoAssalariado)){
                 EmpregadoAssalariado novo = new EmpregadoAssalariado(
                         e.getNome(), e.getEndereco(), e.getSalario()
                 );
-                empregadoRepository.getEmpregados().put(emp, novo);
+                empregadoRepository.addEmpregado(emp, novo);
             }
             else {
                 throw new TipoEmpregadoInvalidoException();
@@ -419,7 +458,7 @@ public class EmpregadoService {
             }
 
             try {
-                double salario = Double.parseDouble(valor);
+                double salario = CodecDataNumero.decimal(valor);
                 if (salario <= 0) {
                     throw new SalarioNegativoException();
                 }
@@ -431,7 +470,7 @@ public class EmpregadoService {
             }
         }
         else if (atributo.equals("comissao")) {
-            if (!(empregadoRepository.getEmpregados().get(emp) instanceof EmpregadoComissionado)) {
+            if (!(empregadoRepository.getEmpregado(emp) instanceof EmpregadoComissionado)) {
                 throw new EmpregadoNaoComissionadoException();
             }
 
@@ -440,12 +479,12 @@ public class EmpregadoService {
             }
 
             try {
-                double taxa = Double.parseDouble(valor.replace(",", "."));
+                double taxa = CodecDataNumero.decimal(valor);
                 if (taxa <= 0) {
                     throw new ComissaoNegativaException();
                 }
 
-                empregadoRepository.getEmpregados().get(emp).setComissao(taxa);
+                empregadoRepository.getEmpregado(emp).setComissao(taxa);
             }
             catch (NumberFormatException ex) {
                 throw new ComissaoNaoNumericaException();
@@ -465,8 +504,12 @@ public class EmpregadoService {
         }
     }
 
-    public void alteraEmpregado(String emp, String atributo, String valor1, String banco, String agencia, String contaCorrente) {
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
+    public void alteraEmpregado(int emp, String atributo, String valor1, String banco, String agencia, String contaCorrente) {
+        registraAlteracao(emp, () -> aplicaAlteracao(emp, atributo, valor1, banco, agencia, contaCorrente));
+    }
+
+    private void aplicaAlteracao(int emp, String atributo, String valor1, String banco, String agencia, String contaCorrente) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
 
         if (!atributo.equals("metodoPagamento")) {
             throw new AtributoDesconhecidoException();
@@ -490,15 +533,19 @@ public class EmpregadoService {
         }
     }
 
-    public void alteraEmpregado(String emp, String atributo, String valor, String comissao) {
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
+    public void alteraEmpregado(int emp, String atributo, String valor, String comissao) {
+        registraAlteracao(emp, () -> aplicaAlteracao(emp, atributo, valor, comissao));
+    }
+
+    private void aplicaAlteracao(int emp, String atributo, String valor, String comissao) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
 
         if (!atributo.equals("tipo")) {
             throw new AtributoDesconhecidoException();
         }
 
         if (valor.equals("comissionado")) {
-            double taxaComissao = Double.parseDouble(comissao.replace(",", "."));
+            double taxaComissao = CodecDataNumero.decimal(comissao);
 
             // cria um novo comissionado, mas preserva os dados básicos
             EmpregadoComissionado novo = new EmpregadoComissionado(
@@ -520,16 +567,16 @@ public class EmpregadoService {
             }
 
             // substitui na coleção
-            empregadoRepository.getEmpregados().put(emp, novo);
+            empregadoRepository.addEmpregado(emp, novo);
         }
         else if (valor.equals("horista")) {
-            double salario = Double.parseDouble(comissao.replace(",", "."));
+            double salario = CodecDataNumero.decimal(comissao);
 
             // cria um novo horista, mas preserva os dados básicos
             EmpregadoHorista novo = new EmpregadoHorista (
                     e.getNome(),
                     e.getEndereco(),
-                    Double.parseDouble(comissao)
+                    salario
             );
 
             // também preserva infos de sindicato e método de pagamento
@@ -543,53 +590,178 @@ public class EmpregadoService {
             }
 
             // substitui na coleção
-            empregadoRepository.getEmpregados().put(emp, novo);
+            empregadoRepository.addEmpregado(emp, novo);
         }
         else {
             throw new TipoEmpregadoDesconhecidoException();
         }
     }
 
-    public String getTaxasServico(String emp, String dataInicial, String dataFinal) {
-        Empregado e = empregadoRepository.getEmpregados().get(emp);
+    public String getTaxasServico(int emp, String dataInicial, String dataFinal) {
+        Empregado e = empregadoRepository.getEmpregado(emp);
+        if (e == null) {
+            throw new EmpregadoNaoExisteException();
+        }
         if (!e.isSindicalizado()) {
             throw new EmpregadoNaoSindicalizadoException();
         }
 
-        String inicioNorm = fmt.normalizarData(dataInicial, " inicial ");
-        String fimNorm = fmt.normalizarData(dataFinal, " final ");
-        LocalDate inicio = LocalDate.parse(inicioNorm, formatter);
-        LocalDate fim = LocalDate.parse(fimNorm, formatter);
+        long inicioLido = CodecDataNumero.leData(dataInicial, " inicial ");
+        long fimLido = CodecDataNumero.leData(dataFinal, " final ");
+        LocalDate inicio = CodecDataNumero.data(inicioLido);
+        LocalDate fim = CodecDataNumero.data(fimLido);
 
         if (fim.isBefore(inicio)) {
             throw new DataInicialPosteriorException();
         }
 
-        double total = e.getTaxasServico(inicio, fim);
+        double total = empregadoRepository.leLancamentos(e, () -> e.getTaxasServico(inicio, fim));
 
-        return String.format("%.2f", total).replace(".", ",");
+        return Dinheiro.formataComVirgula(total);
     }
 
-    public void lancaTaxaServico(String membro, String data, String valor) {
+    public void lancaTaxaServico(String membro, String data, String valor, Runnable confirmacao) {
+        Empregado e = membro(membro);
+        LocalDate dataLanc = dataLancamento(data);
+        double v = valorTaxa(valor);
+
+        empregadoRepository.alteraLancamentos(e, () -> {
+            e.lancaTaxaServico(dataLanc, v);
+
+            historico.registrar(Comando.de(
+                    () -> e.removeTaxaServico(dataLanc, v),
+                    () -> e.lancaTaxaServico(dataLanc, v)), confirmacao);
+        });
+    }
+
+    Empregado membro(String membro) {
         if (membro.isEmpty()) {
             throw new IdentificacaoMembroNulaException();
         }
         if (!empregadoRepository.getSindicatos().containsKey(membro)) {
             throw new MembroNaoExisteException();
         }
+        return empregadoRepository.getSindicato(membro);
+    }
 
-        Empregado e = empregadoRepository.getSindicato(membro);
-
-        String dataNorm = fmt.normalizarData(data, " ");
-        LocalDate dataLanc = LocalDate.parse(dataNorm, formatter);
-        double v = Double.parseDouble(valor.replace(",", "."));
-
+    static double valorTaxa(String valor) {
+        double v = CodecDataNumero.decimal(valor);
         if (v <= 0) {
             throw new ValorNaoPositivoException();
         }
+        return v;
+    }
 
-        e.lancaTaxaServico(dataLanc, v);
+    // ---------------- Lançamentos em lote ----------------
+    // Registros {emp, data, horas}, {emp, data, valor} ou {membro, data, valor}, cada um validado com as
+    // regras e exceções do lançamento avulso, mas todos antes de qualquer mudança: um registro inválido
+    // recusa o lote inteiro. Os lançamentos vão, por empregado, para a série em bloco, e o lote é um
+    // comando só no histórico.
+    public void lancaCartoes(Iterable<String[]> registros, Runnable confirmacao) {
+        lancaLote(LotesPorEmpregado.Tipo.CARTAO, registros, confirmacao);
     }
 
-    // Métodos de lógica de negócio serão implementados aqui
+    public void lancaVendas(Iterable<String[]> registros, Runnable confirmacao) {
+        lancaLote(LotesPorEmpregado.Tipo.VENDA, registros, confirmacao);
+    }
+
+    public void lancaTaxasServico(Iterable<String[]> registros, Runnable confirmacao) {
+        lancaLote(LotesPorEmpregado.Tipo.TAXA_SERVICO, registros, confirmacao);
+    }
+
+    private void lancaLote(LotesPorEmpregado.Tipo tipo, Iterable<String[]> registros, Runnable confirmacao) {
+        LotesPorEmpregado lotes = new LotesPorEmpregado(this, tipo);
+        for (String[] r : registros) {
+            if (r == null || r.length != 3) {
+                throw new RegistroLancamentoInvalidoException();
+            }
+            lotes.adiciona(r[0], r[1], r[2]);
+        }
+        Comando comando = lotes.aplica(empregadoRepository);
+        if (comando != null) {
+            historico.registrar(comando, confirmacao);
+        }
+    }
+
+    // ---------------- Importação de arquivos ----------------
+    // Linhas "emp;data;horas", "emp;data;valor" ou "membro;data;valor" (ver ImportadorLancamentos).
+    // As válidas são aplicadas em lote e ficam num comando só no histórico; 'aceitos' recebe os registros
+    // aplicados, bloco a bloco, e 'confirmacao' roda no fim, se algo foi aplicado. As recusadas vão para
+    // o arquivo 'rejeitados' como "linha;mensagem;texto". Devolve quantas linhas foram importadas.
+    public int importaCartoes(String arquivo, String rejeitados, Consumer<List<String[]>> aceitos, Runnable confirmacao) {
+        return importa(LotesPorEmpregado.Tipo.CARTAO, arquivo, rejeitados, aceitos, confirmacao);
+    }
+
+    public int importaVendas(String arquivo, String rejeitados, Consumer<List<String[]>> aceitos, Runnable confirmacao) {
+        return importa(LotesPorEmpregado.Tipo.VENDA, arquivo, rejeitados, aceitos, confirmacao);
+    }
+
+    public int importaTaxasServico(String arquivo, String rejeitados, Consumer<List<String[]>> aceitos,
+                                   Runnable confirmacao) {
+        return importa(LotesPorEmpregado.Tipo.TAXA_SERVICO, arquivo, rejeitados, aceitos, confirmacao);
+    }
+
+    private int importa(LotesPorEmpregado.Tipo tipo, String arquivo, String rejeitados,
+                        Consumer<List<String[]>> aceitos, Runnable confirmacao) {
+        Path entrada;
+        Path saida;
+        try {
+            entrada = Path.of(arquivo);
+            saida = Path.of(rejeitados);
+        } catch (InvalidPathException e) {
+            throw new ErroLeituraArquivoException("Erro ao ler arquivo de lancamentos: " + arquivo);
+        }
+        ImportadorLancamentos importador =
+                new ImportadorLancamentos(this, tipo, Runtime.getRuntime().availableProcessors());
+        ImportadorLancamentos.Resultado resultado = new ImportadorLancamentos.Resultado();
+        try (Writer recusas = Files.newBufferedWriter(saida, StandardCharsets.UTF_8)) {
+            importador.importa(entrada, recusas, aceitos, resultado);
+        } catch (IOException e) {
+            throw new ErroLeituraArquivoException("Erro ao ler arquivo de lancamentos: " + arquivo);
+        } finally {
+            // o que já foi aplicado continua desfazível, mesmo se a leitura parou no meio
+            if (!resultado.comandos.isEmpty()) {
+                historico.registrar(LotesPorEmpregado.junta(resultado.comandos, resultado.bytesEstimados), confirmacao);
+            }
+        }
+        return resultado.aceitos;
+    }
+
+    // ---------------- Histórico ----------------
+    // Mudanças que só mexem nos mapas: desfazer/refazer é trocar a versão persistente do repositório
+    private void registraEstado(EstadoSistema antes, long bytesRetidos) {
+        EstadoSistema depois = empregadoRepository.capturarEstado();
+        historico.registrar(Comando.de(
+                () -> empregadoRepository.restaurarEstado(antes),
+                () -> empregadoRepository.restaurarEstado(depois),
+                Comando.BYTES_PADRAO + bytesRetidos));
+    }
+
+    // Alterações também mudam atributos do próprio empregado, então guarda um memento dele junto com os mapas
+    private void registraAlteracao(int emp, Runnable alteracao) {
+        Empregado objetoAntes = empregadoRepository.getEmpregado(emp);
+        if (objetoAntes == null) {
+            alteracao.run(); // deixa a própria alteração lançar o erro de validação
+            return;
+        }
+        Empregado estadoAntes = objetoAntes.criarMemento();
+        EstadoSistema mapasAntes = empregadoRepository.capturarEstado();
+
+        alteracao.run();
+
+        Empregado objetoDepois = empregadoRepository.getEmpregado(emp);
+        Empregado estadoDepois = objetoDepois.criarMemento();
+        EstadoSistema mapasDepois = empregadoRepository.capturarEstado();
+
+        historico.registrar(Comando.de(
+                () -> {
+                    objetoAntes.restaurarMemento(estadoAntes);
+                    empregadoRepository.restaurarEstado(mapasAntes);
+                },
+                () -> {
+                    objetoDepois.restaurarMemento(estadoDepois);
+                    empregadoRepository.restaurarEstado(mapasDepois);
+                },
+                Comando.BYTES_PADRAO + 2 * BYTES_POR_EMPREGADO));
+    }
 }
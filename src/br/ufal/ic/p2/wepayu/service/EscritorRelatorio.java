@@ -0,0 +1,190 @@
+package br.ufal.ic.p2.wepayu.service;
+
+import br.ufal.ic.p2.wepayu.models.Dinheiro;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+// Escreve o relatório da folha em colunas de largura fixa sem passar por String.format:
+// números são montados dígito a dígito num buffer de chars reaproveitado, codificados num buffer
+// de bytes e gravados no arquivo em blocos grandes. A saída é a mesma do PrintWriter + printf de
+// antes, byte a byte: mesmo charset padrão, mesmo fim de linha, mesmo separador decimal do locale
+// e o mesmo arredondamento do %.2f.
+// Um só escritor por serviço, reaberto a cada rodaFolha (que roda com o repositório em modo exclusivo).
+// Aberto com abreDescarte, formata tudo igual e joga os bytes fora (a reaplicação do diário).
+final class EscritorRelatorio implements Closeable {
+    private static final int CHARS = 1 << 13;
+    private static final int BYTES = 1 << 16;
+
+    private final CharBuffer chars = CharBuffer.allocate(CHARS);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BYTES);
+    private final char[] digitos = new char[24];
+
+    private FileChannel canal; // null no descarte
+    private CharsetEncoder codificador;
+    private Locale locale;
+    private String fimDeLinha;
+    private char separadorDecimal;
+    private boolean rapido; // locale com dígitos ASCII e sinal '-': dá para montar os números à mão
+
+    EscritorRelatorio abre(String caminho) throws IOException {
+        canal = FileChannel.open(Path.of(caminho),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return prepara();
+    }
+
+    EscritorRelatorio abreDescarte() {
+        canal = null;
+        return prepara();
+    }
+
+    private EscritorRelatorio prepara() {
+        // as mesmas escolhas do FileWriter/PrintWriter, lidas a cada relatório
+        codificador = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        locale = Locale.getDefault(Locale.Category.FORMAT);
+        fimDeLinha = System.lineSeparator();
+        DecimalFormatSymbols simbolos = DecimalFormatSymbols.getInstance(locale);
+        separadorDecimal = simbolos.getDecimalSeparator();
+        rapido = simbolos.getZeroDigit() == '0' && simbolos.getMinusSign() == '-';
+        chars.clear();
+        bytes.clear();
+        return this;
+    }
+
+    // %s
+    void texto(String s) throws IOException {
+        if (s == null) {
+            s = "null";
+        }
+        int de = 0;
+        while (de < s.length()) {
+            if (!chars.hasRemaining()) {
+                esvazia();
+            }
+            int ate = Math.min(s.length(), de + chars.remaining());
+            s.getChars(de, ate, chars.array(), chars.position());
+            chars.position(chars.position() + ate - de);
+            de = ate;
+        }
+    }
+
+    // %-Ns
+    void textoAEsquerda(String s, int largura) throws IOException {
+        texto(s);
+        espacos(largura - (s == null ? 4 : s.length()));
+    }
+
+    void espaco() throws IOException {
+        caractere(' ');
+    }
+
+    void novaLinha() throws IOException {
+        texto(fimDeLinha);
+    }
+
+    void linha(String s) throws IOException {
+        texto(s);
+        novaLinha();
+    }
+
+    // %Nd
+    void inteiro(long v, int largura) throws IOException {
+        if (!rapido || v == Long.MIN_VALUE) {
+            texto(String.format(locale, largura > 0 ? "%" + largura + "d" : "%d", v));
+            return;
+        }
+        int p = digitos.length;
+        long resto = Math.abs(v);
+        do {
+            digitos[--p] = (char) ('0' + resto % 10);
+            resto /= 10;
+        } while (resto > 0);
+        if (v < 0) {
+            digitos[--p] = '-';
+        }
+        alinhaADireita(p, largura);
+    }
+
+    // %N.2f
+    void valor(double v, int largura) throws IOException {
+        int p = rapido ? Dinheiro.duasCasas(v, separadorDecimal, digitos, digitos.length) : -1;
+        if (p < 0) {
+            texto(String.format(locale, largura > 0 ? "%" + largura + ".2f" : "%.2f", v));
+            return;
+        }
+        alinhaADireita(p, largura);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            chars.flip();
+            while (codificador.encode(chars, bytes, true).isOverflow()) {
+                gravaBytes();
+            }
+            while (codificador.flush(bytes).isOverflow()) {
+                gravaBytes();
+            }
+            gravaBytes();
+        } finally {
+            chars.clear();
+            if (canal != null) {
+                canal.close();
+                canal = null;
+            }
+        }
+    }
+
+    private void alinhaADireita(int p, int largura) throws IOException {
+        espacos(largura - (digitos.length - p));
+        if (chars.remaining() < digitos.length - p) {
+            esvazia();
+        }
+        chars.put(digitos, p, digitos.length - p);
+    }
+
+    private void espacos(int n) throws IOException {
+        for (int i = 0; i < n; i++) {
+            caractere(' ');
+        }
+    }
+
+    private void caractere(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            esvazia();
+        }
+        chars.put(c);
+    }
+
+    // Codifica o que está no buffer de chars; um surrogate alto no fim fica para a próxima vez
+    private void esvazia() throws IOException {
+        chars.flip();
+        while (codificador.encode(chars, bytes, false).isOverflow()) {
+            gravaBytes();
+        }
+        chars.compact();
+        if (bytes.remaining() < CHARS * codificador.maxBytesPerChar()) {
+            gravaBytes();
+        }
+    }
+
+    private void gravaBytes() throws IOException {
+        bytes.flip();
+        while (canal != null && bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -1,214 +1,475 @@
 package br.ufal.ic.p2.wepayu.service;
 
+import br.ufal.ic.p2.wepayu.Exception.DataInicialPosteriorException;
 import br.ufal.ic.p2.wepayu.Exception.ErroGeracaoArquivoException;
 import br.ufal.ic.p2.wepayu.models.*;
 import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.text.Collator;
+import java.nio.file.InvalidPathException;
 import java.time.LocalDate;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 public class FolhaPagamentoService {
-    private final EmpregadoRepository empregadoRepository = new EmpregadoRepository();
+    private final EmpregadoRepository empregadoRepository;
+    private final HistoricoSistema historico;
     private final FormataHoraData fmt = new FormataHoraData();
+    private final EscritorRelatorio escritor = new EscritorRelatorio();
 
+    public FolhaPagamentoService(EmpregadoRepository empregadoRepository, HistoricoSistema historico) {
+        this.empregadoRepository = empregadoRepository;
+        this.historico = historico;
+    }
+
+    // Só avalia: quem avança as datas de pagamento é a rodaFolha, que vai para o diário e para o histórico.
+    // Sem confirmar nada, corre junto com outras leituras e com lançamentos; a leitura de cada empregado
+    // é otimista e só é refeita se ele receber um lançamento no meio.
+    // O total de cada data pedida fica guardado (TotalDoDia): enquanto os grupos de pagamento forem os
+    // mesmos, uma nova consulta só reavalia quem foi anotado no registro de alterações desde a anterior.
     public String totalFolha(String dataStr) {
         LocalDate data = fmt.parseData(dataStr, " do totalFolha");
 
-        double total = 0.0;
-        for (Empregado e : empregadoRepository.getEmpregados().values()) {
-            total += e.calculaPagamento(data);
+        synchronized (totais) {
+            MapaPersistente<GrupoPagamento, TabelaEmpregados> grupos = empregadoRepository.getGrupos();
+            totais.removeIf(t -> t.grupos != grupos);
+            empregadoRepository.getAlteracoes().drena(e -> {
+                for (TotalDoDia t : totais) {
+                    t.marca(e);
+                }
+            });
+
+            TotalDoDia total = null;
+            for (int i = 0; i < totais.size(); i++) {
+                if (totais.get(i).data.equals(data)) {
+                    total = totais.remove(i);
+                    break;
+                }
+            }
+            if (total == null) {
+                total = new TotalDoDia(data, grupos, empregadoRepository.getEmpregadosComPagamentoEm(data));
+                if (totais.size() == DATAS_GUARDADAS) {
+                    totais.remove(totais.size() - 1);
+                }
+            }
+            totais.add(0, total);
+            return Dinheiro.formata(atualiza(total));
         }
-        return String.format("%.2f",  total);
+    }
+
+    // Totais das últimas datas consultadas, a mais recente primeiro
+    private static final int DATAS_GUARDADAS = 4;
+    private final List<TotalDoDia> totais = new ArrayList<>(DATAS_GUARDADAS);
+
+    // Pagamento de cada empregado que recebe na data, em ordem de cadastro, e as somas parciais nessa
+    // ordem: o total é a mesma soma simples em double de sempre, igual até o último bit, e trocar um
+    // pagamento só refaz as parciais a partir dele.
+    private static final class TotalDoDia {
+        final LocalDate data;
+        final MapaPersistente<GrupoPagamento, TabelaEmpregados> grupos;
+        final List<Empregado> empregados;
+        final Map<Empregado, Integer> posicoes;
+        final double[] pagamentos;
+        final double[] parciais;   // parciais[i]: soma dos i primeiros pagamentos
+        final BitSet sujos;        // posições a reavaliar; todas, na primeira consulta
+
+        TotalDoDia(LocalDate data, MapaPersistente<GrupoPagamento, TabelaEmpregados> grupos, List<Empregado> empregados) {
+            this.data = data;
+            this.grupos = grupos;
+            this.empregados = empregados;
+            this.posicoes = new IdentityHashMap<>(empregados.size() * 2);
+            for (int i = 0; i < empregados.size(); i++) {
+                posicoes.put(empregados.get(i), i);
+            }
+            this.pagamentos = new double[empregados.size()];
+            this.parciais = new double[empregados.size() + 1];
+            this.sujos = new BitSet(empregados.size());
+            sujos.set(0, empregados.size());
+        }
+
+        void marca(Empregado e) {
+            Integer i = posicoes.get(e);
+            if (i != null) {
+                sujos.set(i);
+            }
+        }
+    }
+
+    private double atualiza(TotalDoDia total) {
+        int[] posicoes = total.sujos.stream().toArray();
+        if (posicoes.length > 0) {
+            paraCada(posicoes.length, k -> {
+                Empregado e = total.empregados.get(posicoes[k]);
+                total.pagamentos[posicoes[k]] = empregadoRepository.leLancamentos(e, () -> e.avaliaPagamento(total.data)).getPagamento();
+            });
+            total.sujos.clear();
+            for (int i = posicoes[0]; i < total.pagamentos.length; i++) {
+                total.parciais[i + 1] = total.parciais[i] + total.pagamentos[i];
+            }
+        }
+        return total.parciais[total.pagamentos.length];
     }
 
     public void rodaFolha(String dataStr, String saida) {
+        rodaFolha(dataStr, saida, true);
+    }
+
+    // Sem gravaRelatorio só as datas de pagamento avançam (e o undo é registrado): é assim que a
+    // reaplicação do diário refaz a folha sem reescrever relatórios já entregues
+    public void rodaFolha(String dataStr, String saida, boolean gravaRelatorio) {
         LocalDate data = fmt.parseData(dataStr, " da rodaFolha");
-        LocalDate inicio = data.minusDays(6);
-        LocalDate fim = data.plusDays(1);
-        Collator collator = Collator.getInstance(new Locale("pt", "BR"));
-        collator.setStrength(Collator.PRIMARY);
 
+        // rodaFolha avança ultimoPagamento (e a data de contrato dos horistas) de quem entra no relatório;
+        // só as datas desses são guardadas para o undo, o resto do sistema a folha não toca
+        Secoes secoes = secoes(data);
+        List<Empregado> afetados = secoes.todos();
+        LocalDate[] datasAntes = capturaDatas(afetados);
+
+        try {
+            escreveFolha(data, secoes, saida, null, gravaRelatorio);
+        } catch (IOException | InvalidPathException e) {
+            // o relatório não saiu: desfaz o avanço das datas de pagamento, como se a folha não tivesse rodado
+            restauraDatas(afetados, datasAntes);
+            throw new ErroGeracaoArquivoException("Erro ao gerar arquivo de folha: " + saida);
+        }
+        registraDatas(afetados, datasAntes);
+    }
+
+    // Folha de cada dia de pagamento entre as duas datas (inclusive), em ordem, num arquivo
+    // "<prefixo>-<data>.txt" por dia: o mesmo que chamar rodaFolha em cada um desses dias, com um
+    // undo só para o período. Os dias saem das agendas dos grupos, então dia sem pagamento nem é visitado,
+    // e cada empregado percorre seus lançamentos uma vez, com janelas que andam junto com as datas.
+    public void rodaFolhaPeriodo(String dataInicialStr, String dataFinalStr, String prefixo) {
+        rodaFolhaPeriodo(dataInicialStr, dataFinalStr, prefixo, true);
+    }
+
+    public void rodaFolhaPeriodo(String dataInicialStr, String dataFinalStr, String prefixo, boolean gravaRelatorio) {
+        LocalDate inicio = fmt.parseData(dataInicialStr, " inicial ");
+        LocalDate fim = fmt.parseData(dataFinalStr, " final ");
+        if (fim.isBefore(inicio)) {
+            throw new DataInicialPosteriorException();
+        }
+
+        // Cada empregado entra na primeira folha do período em que aparece: as datas dele são guardadas
+        // ali, antes do primeiro contracheque, e as janelas montadas antes do cálculo em paralelo, que só lê o mapa
+        List<Empregado> afetados = new ArrayList<>();
+        List<LocalDate> datasAntes = new ArrayList<>();
+        Map<Empregado, JanelasEmpregado> janelas = new IdentityHashMap<>();
+
+        String saida = null;
+        try {
+            for (LocalDate d = empregadoRepository.proximoPagamento(inicio);
+                 d != null && !d.isAfter(fim);
+                 d = empregadoRepository.proximoPagamento(d.plusDays(1))) {
+                Secoes secoes = secoes(d);
+                for (Empregado e : secoes.todos()) {
+                    if (!janelas.containsKey(e)) {
+                        janelas.put(e, e.janelas());
+                        afetados.add(e);
+                        datasAntes.add(e.dataContrato);
+                        datasAntes.add(e.ultimoPagamento);
+                    }
+                }
+                saida = prefixo + "-" + d + ".txt";
+                escreveFolha(d, secoes, saida, janelas, gravaRelatorio);
+            }
+        } catch (IOException | InvalidPathException e) {
+            // como na rodaFolha: o período inteiro volta, inclusive os dias que já tinham saído
+            restauraDatas(afetados, datasAntes.toArray(new LocalDate[0]));
+            throw new ErroGeracaoArquivoException("Erro ao gerar arquivo de folha: " + saida);
+        }
+        registraDatas(afetados, datasAntes.toArray(new LocalDate[0]));
+    }
+
+    // Quem entra em cada seção da folha de 'data', na ordem do relatório: só esses têm o contracheque
+    // calculado e as datas de pagamento acertadas
+    private static final class Secoes {
+        final List<EmpregadoHorista> horistas;
+        final List<EmpregadoAssalariado> assalariados;
+        final List<EmpregadoComissionado> comissionados;
+
+        Secoes(List<EmpregadoHorista> horistas, List<EmpregadoAssalariado> assalariados,
+               List<EmpregadoComissionado> comissionados) {
+            this.horistas = horistas;
+            this.assalariados = assalariados;
+            this.comissionados = comissionados;
+        }
+
+        List<Empregado> todos() {
+            List<Empregado> todos = new ArrayList<>(horistas.size() + assalariados.size() + comissionados.size());
+            todos.addAll(horistas);
+            todos.addAll(assalariados);
+            todos.addAll(comissionados);
+            return todos;
+        }
+    }
+
+    private Secoes secoes(LocalDate data) {
         LocalDate primeiroDiaDoMes = data.withDayOfMonth(1);
         LocalDate ultimoDiaDoMes = data.with(TemporalAdjusters.lastDayOfMonth());
 
-        try (PrintWriter out = new PrintWriter(new FileWriter(saida))) {
-            out.printf("FOLHA DE PAGAMENTO DO DIA %s%n", data);
-            out.println("====================================");
-            out.println();
+        boolean semanaDosHoristas = !data.isBefore(primeiroDiaDoMes) && !data.isAfter(primeiroDiaDoMes.plusDays(7));
+        boolean semanaDosAssalariados = !data.isBefore(ultimoDiaDoMes.minusDays(7)) && !data.isAfter(ultimoDiaDoMes);
 
-            out.println("===============================================================================================================================");
-            out.println("===================== HORISTAS ================================================================================================");
-            out.println("===============================================================================================================================");
-            out.println("Nome                                 Horas Extra Salario Bruto Descontos Salario Liquido Metodo");
-            out.println("==================================== ===== ===== ============= ========= =============== ======================================");
+        return new Secoes(
+                semanaDosHoristas ? lista(empregadoRepository.getHoristasPorNome()) : List.of(),
+                semanaDosAssalariados ? lista(empregadoRepository.getAssalariadosPorNome()) : List.of(),
+                empregadoRepository.getComissionadosComPagamentoEm(data));
+    }
+
+    // Escreve o relatório de 'data' e avança as datas de quem recebeu; janelas é null fora da folha de período
+    private void escreveFolha(LocalDate data, Secoes secoes, String saida, Map<Empregado, JanelasEmpregado> janelas,
+                              boolean gravaRelatorio) throws IOException {
+        List<EmpregadoHorista> horistas = secoes.horistas;
+        List<EmpregadoAssalariado> assalariados = secoes.assalariados;
+        List<EmpregadoComissionado> comissionados = secoes.comissionados;
+
+        try (EscritorRelatorio out = gravaRelatorio ? escritor.abre(saida) : escritor.abreDescarte()) {
+            out.texto("FOLHA DE PAGAMENTO DO DIA ");
+            out.linha(data.toString());
+            out.linha("====================================");
+            out.novaLinha();
+
+            out.linha("===============================================================================================================================");
+            out.linha("===================== HORISTAS ================================================================================================");
+            out.linha("===============================================================================================================================");
+            out.linha("Nome                                 Horas Extra Salario Bruto Descontos Salario Liquido Metodo");
+            out.linha("==================================== ===== ===== ============= ========= =============== ======================================");
 
             int totalHoras = 0, totalExtras = 0;
             double totalBruto = 0, totalDesc = 0, totalLiq = 0;
 
-            if (!data.isBefore(primeiroDiaDoMes) && !data.isAfter(primeiroDiaDoMes.plusDays(7))) {
-                List<EmpregadoHorista> listaHoristas = empregadoRepository.getEmpregados().values().stream()
-                        .filter(e -> e instanceof EmpregadoHorista)
-                        .map(e -> (EmpregadoHorista) e)
-                        .sorted((h1, h2) -> collator.compare(h1.getNome().trim(), h2.getNome().trim()))
-                        .toList();
-
-                for (EmpregadoHorista e : listaHoristas) {
-                    if (e != null) {
-                        double pagamento = e.calculaPagamento(data);
-
-                        int horas = (int) e.getHorasNormais(inicio, fim);
-                        int extras = (int) e.getHorasExtras(inicio, fim);
-
-                        double bruto = pagamento;
-                        double descontos = (bruto > 0) ? e.calculaTaxa(inicio, fim) : 0;
-                        double liquido = pagamento - descontos;
-
-                        totalHoras += horas;
-                        totalExtras += extras;
-                        totalBruto += bruto;
-                        totalDesc += descontos;
-                        totalLiq += liquido;
-
-                        out.printf("%-36s %5d %5d %13.2f %9.2f %15.2f ",
-                                e.getNome(),
-                                horas,
-                                extras,
-                                bruto,
-                                descontos,
-                                liquido
-                        );
-                        if (e.recebeEmBanco()) {
-                            out.printf("%s%n", String.format("%s, Ag. %s CC %s", e.getBanco(), e.getAgencia(), e.getContaCorrente()));
-                        }
-                        else if (e.getMetodoPagamento().equals("correios")) {
-                            out.printf("%s%n", String.format("Correios, %s", e.getEndereco()));
-                        }
-                        else {
-                            out.printf("Em maos%n");
-                        }
-                    }
-                }
+            Contracheque[] contrachequesH = calculaContracheques(horistas, e -> e.contracheque(data, janelas(janelas, e)));
+            for (int i = 0; i < contrachequesH.length; i++) {
+                Contracheque c = contrachequesH[i];
+                int horas = (int) c.getHorasNormais();
+                int extras = (int) c.getHorasExtras();
+                totalHoras += horas;
+                totalExtras += extras;
+                totalBruto += c.getBruto();
+                totalDesc += c.getDescontos();
+                totalLiq += c.getLiquido();
+
+                out.textoAEsquerda(horistas.get(i).getNome(), 36);
+                out.espaco();
+                out.inteiro(horas, 5);
+                out.espaco();
+                out.inteiro(extras, 5);
+                escreveValores(out, c);
+                escreveMetodo(out, horistas.get(i));
             }
 
-            out.printf("%nTOTAL HORISTAS%28d %5d %13.2f %9.2f %15.2f%n%n",
-                    totalHoras, totalExtras, totalBruto, totalDesc, totalLiq);
-
-            out.println("===============================================================================================================================");
-            out.println("===================== ASSALARIADOS ============================================================================================");
-            out.println("===============================================================================================================================");
-            out.println("Nome                                             Salario Bruto Descontos Salario Liquido Metodo");
-            out.println("================================================ ============= ========= =============== ======================================");
+            out.novaLinha();
+            out.texto("TOTAL HORISTAS");
+            out.inteiro(totalHoras, 28);
+            out.espaco();
+            out.inteiro(totalExtras, 5);
+            out.espaco();
+            out.valor(totalBruto, 13);
+            out.espaco();
+            out.valor(totalDesc, 9);
+            out.espaco();
+            out.valor(totalLiq, 15);
+            out.novaLinha();
+            out.novaLinha();
+
+            out.linha("===============================================================================================================================");
+            out.linha("===================== ASSALARIADOS ============================================================================================");
+            out.linha("===============================================================================================================================");
+            out.linha("Nome                                             Salario Bruto Descontos Salario Liquido Metodo");
+            out.linha("================================================ ============= ========= =============== ======================================");
 
 
             double totalBrutoA = 0, totalDescA = 0, totalLiqA = 0;
 
-            if (!data.isBefore(ultimoDiaDoMes.minusDays(7)) && !data.isAfter(ultimoDiaDoMes)){
-                List<EmpregadoAssalariado> listaAssalariados = empregadoRepository.getEmpregados().values().stream()
-                        .filter(e -> e instanceof EmpregadoAssalariado)
-                        .map(e -> (EmpregadoAssalariado) e)
-                        .sorted((a1, a2) -> collator.compare(a1.getNome().trim(), a2.getNome().trim()))
-                        .toList();
-
-                for (EmpregadoAssalariado e : listaAssalariados) {
-                    if (e != null) {
-                        double bruto = e.getSalario();
-                        double descontos = e.calculaTaxa(ultimoDiaDoMes.getDayOfMonth(), primeiroDiaDoMes, ultimoDiaDoMes);
-                        double liquido = bruto - descontos;
-
-                        totalBrutoA += bruto;
-                        totalDescA += descontos;
-                        totalLiqA += liquido;
-
-                        out.printf("%-48s %13.2f %9.2f %15.2f ",
-                                e.getNome(),
-                                bruto,
-                                descontos,
-                                liquido
-                        );
-                        if (e.recebeEmBanco()) {
-                            out.printf("%s%n", String.format("%s, Ag. %s CC %s", e.getBanco(), e.getAgencia(), e.getContaCorrente()));
-                        }
-                        else if (e.getMetodoPagamento().equals("correios")) {
-                            out.printf("%s%n", String.format("Correios, %s", e.getEndereco()));
-                        }
-                        else {
-                            out.printf("Em maos%n");
-                        }
-                    }
-                }
-            }
+            Contracheque[] contrachequesA = calculaContracheques(assalariados, e -> e.contracheque(data, janelas(janelas, e)));
+            for (int i = 0; i < contrachequesA.length; i++) {
+                Contracheque c = contrachequesA[i];
+                totalBrutoA += c.getBruto();
+                totalDescA += c.getDescontos();
+                totalLiqA += c.getLiquido();
 
-            out.printf("%nTOTAL ASSALARIADOS%44.2f %9.2f %15.2f%n%n",
-                    totalBrutoA, totalDescA, totalLiqA);
+                out.textoAEsquerda(assalariados.get(i).getNome(), 48);
+                escreveValores(out, c);
+                escreveMetodo(out, assalariados.get(i));
+            }
 
-            out.println("===============================================================================================================================");
-            out.println("===================== COMISSIONADOS ===========================================================================================");
-            out.println("===============================================================================================================================");
-            out.println("Nome                  Fixo     Vendas   Comissao Salario Bruto Descontos Salario Liquido Metodo");
-            out.println("===================== ======== ======== ======== ============= ========= =============== ======================================");
+            out.novaLinha();
+            out.texto("TOTAL ASSALARIADOS");
+            out.valor(totalBrutoA, 44);
+            out.espaco();
+            out.valor(totalDescA, 9);
+            out.espaco();
+            out.valor(totalLiqA, 15);
+            out.novaLinha();
+            out.novaLinha();
+
+            out.linha("===============================================================================================================================");
+            out.linha("===================== COMISSIONADOS ===========================================================================================");
+            out.linha("===============================================================================================================================");
+            out.linha("Nome                  Fixo     Vendas   Comissao Salario Bruto Descontos Salario Liquido Metodo");
+            out.linha("===================== ======== ======== ======== ============= ========= =============== ======================================");
 
             double totalFixo = 0, totalVendas = 0, totalComissao = 0, totalBrutoC = 0, totalDescC = 0, totalLiqC = 0;
 
-            List<EmpregadoComissionado> listaComissionados = empregadoRepository.getEmpregados().values().stream()
-                    .filter(e -> e instanceof EmpregadoComissionado)
-                    .map(e -> (EmpregadoComissionado) e)
-                    .sorted((c1, c2) -> collator.compare(c1.getNome().trim(), c2.getNome().trim()))
-                    .toList();
+            Contracheque[] contrachequesC = calculaContracheques(comissionados, e -> e.contracheque(data, janelas(janelas, e)));
+            for (int i = 0; i < contrachequesC.length; i++) {
+                Contracheque c = contrachequesC[i];
+                totalFixo += c.getFixo();
+                totalVendas += c.getVendas();
+                totalComissao += c.getComissao();
+                totalBrutoC += c.getBruto();
+                totalDescC += c.getDescontos();
+                totalLiqC += c.getLiquido();
+
+                out.textoAEsquerda(comissionados.get(i).getNome(), 21);
+                out.espaco();
+                out.valor(c.getFixo(), 8);
+                out.espaco();
+                out.valor(c.getVendas(), 8);
+                out.espaco();
+                out.valor(c.getComissao(), 8);
+                escreveValores(out, c);
+                escreveMetodo(out, comissionados.get(i));
+            }
 
-            for (EmpregadoComissionado e : listaComissionados) {
-                if (!e.ehDiaDePagamento(data)) {
-                    continue; // pula quem não deve receber nesta data
-                }
+            out.novaLinha();
+            out.texto("TOTAL COMISSIONADOS ");
+            out.valor(totalFixo, 10);
+            out.espaco();
+            out.valor(totalVendas, 8);
+            out.espaco();
+            out.valor(totalComissao, 8);
+            out.espaco();
+            out.valor(totalBrutoC, 13);
+            out.espaco();
+            out.valor(totalDescC, 9);
+            out.espaco();
+            out.valor(totalLiqC, 15);
+            out.novaLinha();
+            out.novaLinha();
 
-                LocalDate inicio1 = e.inicioPeriodoParaPagamento(data);
-                LocalDate fimExclusive = data.plusDays(1);
-
-                double vendas = e.getVendasPeriodo(data);
-                double comissao = vendas * e.getComissao();
-                double fixo = (e.getSalario() * 12 / 52) * 2;
-                double bruto = fixo + comissao;
-                double descontos = e.calculaTaxa(inicio, fimExclusive);
-                double liquido = bruto - descontos;
-
-                totalFixo += fixo;
-                totalVendas += vendas;
-                totalComissao += comissao;
-                totalBrutoC += bruto;
-                totalDescC += descontos;
-                totalLiqC += liquido;
-
-                out.printf("%-21s %8.2f %8.2f %8.2f %13.2f %9.2f %15.2f ",
-                        e.getNome(),
-                        fixo,
-                        vendas,
-                        comissao,
-                        bruto,
-                        descontos,
-                        liquido
-                );
-                if (e.recebeEmBanco()) {
-                    out.printf("%s%n", String.format("%s, Ag. %s CC %s", e.getBanco(), e.getAgencia(), e.getContaCorrente()));
-                } else if (e.getMetodoPagamento().equals("correios")) {
-                    out.printf("%s%n", String.format("Correios, %s", e.getEndereco()));
-                } else {
-                    out.printf("Em maos%n");
+            double totalFolha = totalBruto + totalBrutoA + totalBrutoC;
+            out.texto("TOTAL FOLHA: ");
+            out.valor(totalFolha, 0);
+            out.novaLinha();
+        }
+    }
+
+    private static JanelasEmpregado janelas(Map<Empregado, JanelasEmpregado> janelas, Empregado e) {
+        return janelas == null ? null : janelas.get(e);
+    }
+
+    private void registraDatas(List<Empregado> afetados, LocalDate[] datasAntes) {
+        LocalDate[] datasDepois = capturaDatas(afetados);
+        // lista + dois vetores de datas: ~5 referências por empregado
+        historico.registrar(Comando.de(
+                () -> restauraDatas(afetados, datasAntes),
+                () -> restauraDatas(afetados, datasDepois),
+                Comando.BYTES_PADRAO + 40L * afetados.size()));
+    }
+
+    // " %13.2f %9.2f %15.2f ": as três colunas finais de toda seção
+    private static void escreveValores(EscritorRelatorio out, Contracheque c) throws IOException {
+        out.espaco();
+        out.valor(c.getBruto(), 13);
+        out.espaco();
+        out.valor(c.getDescontos(), 9);
+        out.espaco();
+        out.valor(c.getLiquido(), 15);
+        out.espaco();
+    }
+
+    private static void escreveMetodo(EscritorRelatorio out, Empregado e) throws IOException {
+        if (e.recebeEmBanco()) {
+            out.texto(e.getBanco());
+            out.texto(", Ag. ");
+            out.texto(e.getAgencia());
+            out.texto(" CC ");
+            out.linha(e.getContaCorrente());
+        } else if (e.getMetodoPagamento().equals("correios")) {
+            out.texto("Correios, ");
+            out.linha(e.getEndereco());
+        } else {
+            out.linha("Em maos");
+        }
+    }
+
+    // ---------------- Cálculo em paralelo ----------------
+    // O pagamento de cada empregado só mexe nele mesmo, então os contracheques de uma seção são calculados
+    // em paralelo (fork/join) e depois escritos e somados em sequência, na ordem do relatório:
+    // o arquivo e os totais saem idênticos aos do cálculo sequencial.
+    // Quem chama está com o repositório em modo exclusivo; as tarefas não precisam de trava.
+    private static final int LIMIAR_PARALELO = 4096;  // abaixo disso, repartir custa mais do que ganha
+    private static final int TAREFA_MINIMA = 512;
+
+    private static <E extends Empregado> List<E> lista(Iterable<E> porNome) {
+        List<E> empregados = new ArrayList<>();
+        porNome.forEach(empregados::add);
+        return empregados;
+    }
+
+    private static <E extends Empregado> Contracheque[] calculaContracheques(List<E> empregados, Function<E, Contracheque> calculo) {
+        Contracheque[] contracheques = new Contracheque[empregados.size()];
+        paraCada(contracheques.length, i -> contracheques[i] = calculo.apply(empregados.get(i)));
+        return contracheques;
+    }
+
+    private static void paraCada(int quantidade, IntConsumer corpo) {
+        if (quantidade < LIMIAR_PARALELO) {
+            for (int i = 0; i < quantidade; i++) {
+                corpo.accept(i);
+            }
+        } else {
+            ForkJoinPool.commonPool().invoke(new Trecho(0, quantidade, corpo));
+        }
+    }
+
+    private static final class Trecho extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int inicio, fim;
+        private final IntConsumer corpo;
+
+        Trecho(int inicio, int fim, IntConsumer corpo) {
+            this.inicio = inicio;
+            this.fim = fim;
+            this.corpo = corpo;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= TAREFA_MINIMA) {
+                for (int i = inicio; i < fim; i++) {
+                    corpo.accept(i);
                 }
-                e.ultimoPagamento = data;
+                return;
             }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new Trecho(inicio, meio, corpo), new Trecho(meio, fim, corpo));
+        }
+    }
 
-            out.printf("%nTOTAL COMISSIONADOS %10.2f %8.2f %8.2f %13.2f %9.2f %15.2f%n%n",
-                    totalFixo, totalVendas, totalComissao, totalBrutoC, totalDescC, totalLiqC);
+    private LocalDate[] capturaDatas(List<Empregado> empregados) {
+        LocalDate[] datas = new LocalDate[empregados.size() * 2];
+        for (int i = 0; i < empregados.size(); i++) {
+            datas[2 * i] = empregados.get(i).dataContrato;
+            datas[2 * i + 1] = empregados.get(i).ultimoPagamento;
+        }
+        return datas;
+    }
 
-            double totalFolha = totalBruto + totalBrutoA + totalBrutoC;
-            out.printf("TOTAL FOLHA: %.2f%n", totalFolha);
-        } catch (IOException e) {
-            throw new ErroGeracaoArquivoException("Erro ao gerar arquivo de folha: " + saida);
+    private void restauraDatas(List<Empregado> empregados, LocalDate[] datas) {
+        for (int i = 0; i < empregados.size(); i++) {
+            empregados.get(i).restauraDatas(datas[2 * i], datas[2 * i + 1]);
         }
     }
 }
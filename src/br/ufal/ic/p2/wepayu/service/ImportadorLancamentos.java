@@ -0,0 +1,176 @@
+package br.ufal.ic.p2.wepayu.service;
+
+import br.ufal.ic.p2.wepayu.Exception.RegistroLancamentoInvalidoException;
+import br.ufal.ic.p2.wepayu.Exception.ValidacaoException;
+import br.ufal.ic.p2.wepayu.models.Comando;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+// Importa lançamentos de um arquivo CSV, um por linha: "emp;data;horas", "emp;data;valor" ou
+// "membro;data;valor", sem cabeçalho (';' porque os números usam vírgula decimal).
+// O arquivo é mapeado em memória e cortado em blocos de até BLOCO bytes terminados em fim de linha.
+// Cada rodada lê e valida até 'paralelismo' blocos em paralelo; depois os blocos são aplicados na ordem
+// do arquivo, em lote por empregado. Só uma rodada fica em memória de cada vez.
+// Uma linha recusada não impede as outras: vai para o relatório com o número dela e a mensagem da
+// exceção que o lançamento avulso lançaria. Só a mensagem é usada, então a validação dos blocos roda
+// com as exceções de validação sem pilha.
+final class ImportadorLancamentos {
+    static final int BLOCO = 4 * 1024 * 1024;
+
+    private final EmpregadoService servico;
+    private final LotesPorEmpregado.Tipo tipo;
+    private final int paralelismo;
+
+    ImportadorLancamentos(EmpregadoService servico, LotesPorEmpregado.Tipo tipo, int paralelismo) {
+        this.servico = servico;
+        this.tipo = tipo;
+        this.paralelismo = paralelismo;
+    }
+
+    static final class Resultado {
+        int aceitos = 0;
+        final List<Comando> comandos = new ArrayList<>();
+        long bytesEstimados = 0;
+    }
+
+    // Aplica as linhas válidas conforme lê; 'aceitos' recebe, bloco a bloco, os registros já aplicados.
+    // Os comandos do resultado desfazem tudo o que foi aplicado, mesmo se a leitura parar no meio.
+    void importa(Path arquivo, Writer rejeitados, Consumer<List<String[]>> aceitos, Resultado resultado)
+            throws IOException {
+        EmpregadoRepository repositorio = servico.getEmpregadoRepository();
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            long inicio = 0;
+            int linhaBase = 0;
+            while (inicio < tamanho) {
+                List<CompletableFuture<Bloco>> rodada = new ArrayList<>(paralelismo);
+                while (rodada.size() < paralelismo && inicio < tamanho) {
+                    MappedByteBuffer dados = mapeiaBloco(canal, inicio, tamanho);
+                    inicio += dados.limit();
+                    rodada.add(CompletableFuture.supplyAsync(() -> ValidacaoException.semPilha(() -> le(dados))));
+                }
+                for (CompletableFuture<Bloco> futuro : rodada) {
+                    Bloco bloco = futuro.join();
+                    Comando comando = bloco.lotes.aplica(repositorio);
+                    if (comando != null) {
+                        resultado.comandos.add(comando);
+                        resultado.bytesEstimados += bloco.lotes.bytesEstimados();
+                        aceitos.accept(bloco.registros);
+                    }
+                    resultado.aceitos += bloco.lotes.tamanho();
+                    for (Recusa recusa : bloco.recusas) {
+                        rejeitados.write((linhaBase + recusa.linha) + ";" + recusa.mensagem + ";" + recusa.texto + "\n");
+                    }
+                    linhaBase += bloco.linhas;
+                }
+            }
+        }
+    }
+
+    // Do início até o último fim de linha que cabe em BLOCO bytes (ou até o fim do arquivo); uma linha
+    // maior que o bloco faz a janela crescer até alcançar o fim dela
+    private static MappedByteBuffer mapeiaBloco(FileChannel canal, long inicio, long tamanho) throws IOException {
+        long janela = BLOCO;
+        while (true) {
+            long fim = Math.min(tamanho, inicio + janela);
+            MappedByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+            if (fim == tamanho) {
+                return dados;
+            }
+            for (int p = dados.limit() - 1; p >= 0; p--) {
+                if (dados.get(p) == '\n') {
+                    dados.limit(p + 1);
+                    return dados;
+                }
+            }
+            janela *= 2;
+        }
+    }
+
+    private Bloco le(MappedByteBuffer dados) {
+        Bloco bloco = new Bloco(new LotesPorEmpregado(servico, tipo));
+        byte[] linha = new byte[128];
+        int fimDados = dados.limit();
+        int p = 0;
+        while (p < fimDados) {
+            int n = 0;
+            byte b;
+            while (p < fimDados && (b = dados.get(p++)) != '\n') {
+                if (n == linha.length) {
+                    linha = Arrays.copyOf(linha, n * 2);
+                }
+                linha[n++] = b;
+            }
+            bloco.linhas++;
+            if (n > 0 && linha[n - 1] == '\r') {
+                n--;
+            }
+            if (n > 0) {
+                leLinha(bloco, linha, n);
+            }
+        }
+        return bloco;
+    }
+
+    private static void leLinha(Bloco bloco, byte[] linha, int n) {
+        int primeiro = indice(linha, 0, n);
+        int segundo = primeiro < 0 ? -1 : indice(linha, primeiro + 1, n);
+        try {
+            if (segundo < 0 || indice(linha, segundo + 1, n) >= 0) {
+                throw new RegistroLancamentoInvalidoException();
+            }
+            String[] registro = {
+                    new String(linha, 0, primeiro, StandardCharsets.UTF_8),
+                    new String(linha, primeiro + 1, segundo - primeiro - 1, StandardCharsets.UTF_8),
+                    new String(linha, segundo + 1, n - segundo - 1, StandardCharsets.UTF_8)};
+            bloco.lotes.adiciona(registro[0], registro[1], registro[2]);
+            bloco.registros.add(registro);
+        } catch (RuntimeException e) {
+            bloco.recusas.add(new Recusa(bloco.linhas, e.getMessage(), new String(linha, 0, n, StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static int indice(byte[] linha, int de, int ate) {
+        for (int i = de; i < ate; i++) {
+            if (linha[i] == ';') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Bloco {
+        final LotesPorEmpregado lotes;
+        final List<String[]> registros = new ArrayList<>();
+        final List<Recusa> recusas = new ArrayList<>();
+        int linhas = 0;
+
+        Bloco(LotesPorEmpregado lotes) {
+            this.lotes = lotes;
+        }
+    }
+
+    private static final class Recusa {
+        final int linha; // dentro do bloco, a partir de 1
+        final String mensagem;
+        final String texto;
+
+        Recusa(int linha, String mensagem, String texto) {
+            this.linha = linha;
+            this.mensagem = mensagem;
+            this.texto = texto;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package br.ufal.ic.p2.wepayu.service;
+
+import br.ufal.ic.p2.wepayu.models.*;
+import br.ufal.ic.p2.wepayu.repository.EmpregadoRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Registros de lançamento já validados, agrupados por empregado e ainda não aplicados.
+// A validação é a do lançamento avulso (mesmas regras, mesma ordem, mesmas exceções) e só lê o
+// repositório, então lotes diferentes podem ser montados em paralelo; o empregado e a data de cada
+// texto distinto são resolvidos uma vez por lote.
+final class LotesPorEmpregado {
+    enum Tipo { CARTAO, VENDA, TAXA_SERVICO }
+
+    private final EmpregadoService servico;
+    private final Tipo tipo;
+    private final Map<String, Lote> lotes = new LinkedHashMap<>();
+    private final Map<String, LocalDate> datas = new HashMap<>();
+    private int tamanho = 0;
+
+    LotesPorEmpregado(EmpregadoService servico, Tipo tipo) {
+        this.servico = servico;
+        this.tipo = tipo;
+    }
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    // Valida o registro (id é o emp, ou o membro nas taxas) e o junta ao lote do empregado; nada muda se lançar
+    void adiciona(String id, String data, String valor) {
+        Lote lote = lotes.get(id);
+        Empregado e = lote != null ? lote.empregado : switch (tipo) {
+            case CARTAO -> servico.horista(IdEmpregado.interpreta(id));
+            case VENDA -> servico.comissionado(IdEmpregado.interpreta(id));
+            case TAXA_SERVICO -> servico.membro(id);
+        };
+        LocalDate d;
+        double v;
+        if (tipo == Tipo.CARTAO) {
+            v = EmpregadoService.horasCartao(valor);
+            d = data(data);
+        } else {
+            d = data(data);
+            v = tipo == Tipo.VENDA ? EmpregadoService.valorVenda(valor) : EmpregadoService.valorTaxa(valor);
+        }
+        if (lote == null) {
+            lote = new Lote(e);
+            lotes.put(id, lote);
+        }
+        lote.lancamentos.adiciona(d, v);
+        tamanho++;
+    }
+
+    private LocalDate data(String data) {
+        LocalDate d = datas.get(data);
+        if (d == null) {
+            d = tipo == Tipo.CARTAO ? servico.dataCartao(data) : servico.dataLancamento(data);
+            datas.put(data, d);
+        }
+        return d;
+    }
+
+    // Lança cada empregado na faixa dele; devolve um comando só que desfaz/refaz todos, ou null se vazio
+    Comando aplica(EmpregadoRepository repositorio) {
+        if (lotes.isEmpty()) {
+            return null;
+        }
+        List<Comando> comandos = new ArrayList<>(lotes.size());
+        for (Lote lote : lotes.values()) {
+            repositorio.alteraLancamentos(lote.empregado, () -> comandos.add(aplica(lote.empregado, lote.lancamentos)));
+        }
+        return junta(comandos, bytesEstimados());
+    }
+
+    private Comando aplica(Empregado e, LoteLancamentos lancamentos) {
+        switch (tipo) {
+            case CARTAO -> {
+                EmpregadoHorista horista = (EmpregadoHorista) e;
+                LocalDate contratoAnterior = horista.dataContrato;
+                horista.lancaCartoes(lancamentos);
+                return Comando.de(
+                        () -> {
+                            horista.dataContrato = contratoAnterior;
+                            horista.removeRegistros(lancamentos);
+                        },
+                        () -> horista.lancaCartoes(lancamentos));
+            }
+            case VENDA -> {
+                EmpregadoComissionado comissionado = (EmpregadoComissionado) e;
+                comissionado.lancaVendas(lancamentos);
+                return Comando.de(
+                        () -> comissionado.removeVendas(lancamentos),
+                        () -> comissionado.lancaVendas(lancamentos));
+            }
+            default -> {
+                e.lancaTaxasServico(lancamentos);
+                return Comando.de(
+                        () -> e.removeTaxasServico(lancamentos),
+                        () -> e.lancaTaxasServico(lancamentos));
+            }
+        }
+    }
+
+    // O lote guarda 12 bytes por lançamento, mais um comando por empregado
+    long bytesEstimados() {
+        return Comando.BYTES_PADRAO * (lotes.size() + 1) + 12L * tamanho;
+    }
+
+    // Desfaz na ordem inversa e refaz na ordem original
+    static Comando junta(List<Comando> comandos, long bytesEstimados) {
+        return Comando.de(
+                () -> {
+                    for (int i = comandos.size() - 1; i >= 0; i--) {
+                        comandos.get(i).desfazer();
+                    }
+                },
+                () -> comandos.forEach(Comando::refazer),
+                bytesEstimados);
+    }
+
+    private static final class Lote {
+        final Empregado empregado;
+        final LoteLancamentos lancamentos = new LoteLancamentos();
+
+        Lote(Empregado empregado) {
+            this.empregado = empregado;
+        }
+    }
+}